@@ -0,0 +1,81 @@
+package eightpuzzle.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Fixed-seed scrambleState corpora of 3x3 boards, bucketed by optimal solution length
+ *
+ * Boards come from scrambling with seeds 1, 2, 3, ... and are kept when 'solve ORACLE' says their optimal solution
+ * has exactly the bucket's length, so every run (and every commit) benchmarks the same boards. Short scrambles are
+ * tried for shallow buckets and long ones for deep buckets, where short random walks almost never end up. The 31-move
+ * bucket holds the only 2 boards that exist at that distance.
+ */
+final class Corpus {
+    // boards per bucket (only 2 boards are 31 moves from the goal), and seeds tried before giving up
+    static final int SIZE = 8;
+    private static final int MAX_DEPTH_BOARDS = 2;
+    private static final int MAX_SEEDS = 2_000_000;
+
+    private static final Map<Integer, List<String>> CACHE = new ConcurrentHashMap<>();
+
+    private Corpus() {
+    }
+
+    /**
+     * boards() returns the setState arguments of the corpus for a solution length
+     * @param depth is the optimal solution length, at most 31
+     * @return SIZE boards
+     */
+    static List<String> boards(int depth) {
+        return CACHE.computeIfAbsent(depth, Corpus::build);
+    }
+
+    private static List<String> build(int depth) {
+        PuzzleDriver driver = new PuzzleDriver();
+        List<String> boards = new ArrayList<>();
+        int size = depth == 31 ? MAX_DEPTH_BOARDS : SIZE;
+        for (long seed = 1; boards.size() < size && seed <= MAX_SEEDS; seed++) {
+            // walks of depth, depth + 2, ... moves for shallow buckets; 100 moves (near uniform) for deep ones
+            int moves = depth <= 20 ? depth + 2 * (int) (seed % 6) : 100 + (int) (seed & 1);
+            driver.cmd("setSeed " + seed);
+            String grid = driver.capture("scrambleState " + moves);
+            if (optimalLength(driver) != depth) continue;
+
+            String board = parseGrid(grid);
+            if (!boards.contains(board)) boards.add(board);
+        }
+        if (boards.size() < size) {
+            throw new IllegalStateException("only " + boards.size() + " " + depth + "-move boards in " + MAX_SEEDS + " seeds");
+        }
+        return boards;
+    }
+
+    private static int optimalLength(PuzzleDriver driver) {
+        for (String line : driver.capture("solve ORACLE").split("\n")) {
+            if (line.startsWith("Solution length: ")) return Integer.parseInt(line.substring(17).trim());
+        }
+        return 0; // already solved
+    }
+
+    /**
+     * parseGrid() turns printState output back into a setState argument
+     */
+    private static String parseGrid(String grid) {
+        StringBuilder board = new StringBuilder();
+        for (String row : grid.split("\n")) {
+            if (!row.startsWith("|")) continue;
+            String cells = row.substring(1, row.lastIndexOf('|'));
+            for (int i = 0; i < cells.length(); i += 2) {
+                char cell = cells.charAt(i);
+                if (board.length() > 0) board.append(' ');
+                board.append(cell == ' ' ? '0' : cell);
+            }
+        }
+        return board.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package eightpuzzle.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Drives an EightPuzzle through its command interface for the benchmarks
+ *
+ * EightPuzzle lives in the default package, which code in a named package (as JMH requires) cannot import, so the
+ * driver binds its constructor and cmd() through method handles once. Command output is dropped unless capture is
+ * switched on, so printing stays out of the measurements.
+ */
+final class PuzzleDriver {
+    private static final MethodHandle CONSTRUCTOR;
+    private static final MethodHandle CMD;
+
+    static {
+        try {
+            Class<?> puzzle = Class.forName("EightPuzzle");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            CONSTRUCTOR = lookup.findConstructor(puzzle, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            CMD = lookup.findVirtual(puzzle, "cmd", MethodType.methodType(void.class, String.class))
+                    .asType(MethodType.methodType(void.class, Object.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object puzzle;
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private boolean capturing = false;
+
+    PuzzleDriver() {
+        // EightPuzzle writes to the System.out it was created with
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (capturing) captured.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (capturing) captured.write(b, off, len);
+            }
+        }));
+        try {
+            puzzle = CONSTRUCTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    /**
+     * cmd() runs one command, dropping its output
+     */
+    void cmd(String command) {
+        try {
+            CMD.invokeExact(puzzle, command);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * capture() runs one command and returns its output
+     */
+    String capture(String command) {
+        captured.reset();
+        capturing = true;
+        try {
+            cmd(command);
+        } finally {
+            capturing = false;
+        }
+        return captured.toString();
+    }
+}
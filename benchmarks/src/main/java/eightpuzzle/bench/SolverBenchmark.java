@@ -0,0 +1,91 @@
+package eightpuzzle.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * JMH benchmarks of the 3x3 solvers over the fixed-seed corpora (see Corpus)
+ *
+ * Each operation solves the next board of the depth's corpus, going through cmd() exactly like a command file does.
+ * The board is set up before the operation starts, so only the solve is timed. Throughput mode reports ops/s and
+ * sample mode reports latency percentiles in seconds; run with -prof gc for allocation rates and -rf json to keep
+ * results for comparison between commits (see README).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    // large enough that no corpus board runs out of nodes
+    private static final String MAXNODES = " maxnodes=1000000";
+
+    @Param({"5", "10", "15", "20", "25", "31"})
+    public int depth;
+
+    private PuzzleDriver driver;
+    private String[] setStates;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        driver = new PuzzleDriver();
+        List<String> boards = Corpus.boards(depth);
+        setStates = new String[boards.size()];
+        for (int i = 0; i < setStates.length; i++) {
+            setStates[i] = "setState " + boards.get(i);
+        }
+    }
+
+    /**
+     * nextBoard() sets up the next corpus board outside the timed operation
+     */
+    @Setup(Level.Invocation)
+    public void nextBoard() {
+        driver.cmd(setStates[next]);
+        next = (next + 1) % setStates.length;
+    }
+
+    /**
+     * solve() runs one solve command on the board nextBoard() set up
+     */
+    private void solve(String command) {
+        driver.cmd(command);
+    }
+
+    @Benchmark
+    public void bfs() {
+        solve("solve BFS" + MAXNODES);
+    }
+
+    @Benchmark
+    public void dfs() {
+        solve("solve DFS" + MAXNODES);
+    }
+
+    @Benchmark
+    public void aStarH1() {
+        solve("solve A* h1" + MAXNODES);
+    }
+
+    @Benchmark
+    public void aStarH2() {
+        solve("solve A* h2" + MAXNODES);
+    }
+}
@@ -0,0 +1,169 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Tests of the commands: the solution cache must not change what a solve returns or let it past its limits, and
+ * --batch mode must print the same as running the file line by line
+ */
+class EightPuzzleTest {
+    // 3x3 boards at 14, 16, 22 and 27 moves from the goal, the 14 and 22 move ones on the path of the 27 move one
+    private static final List<String> BOARDS = List.of(
+            "6 3 0 7 4 1 8 5 2", "2 8 5 1 0 4 6 3 7", "0 7 1 8 3 6 4 2 5", "8 6 7 2 5 4 3 0 1");
+
+    private static final List<String> SOLVES = List.of(
+            "solve BFS maxnodes=1000000", "solve IDDFS maxnodes=50000000", "solve A* h2 maxnodes=1000000",
+            "solve IDA* pdb", "solve SMA* h2", "solve ORACLE");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cachedSolvesMatchUncachedSolves() {
+        List<String> commands = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            for (String board : BOARDS) {
+                commands.add("setState " + board);
+                commands.addAll(SOLVES);
+            }
+        }
+        String uncached = lengths(run(board -> commands.forEach(board::cmd)));
+        String cached = lengths(run(board -> {
+            board.cmd("cache on");
+            commands.forEach(board::cmd);
+        }));
+        assertEquals(uncached, cached.replace("Solution cache: 0 hits, 0 misses, 0 splices, 0 entries (budget 16384 KB)"
+                + System.lineSeparator(), ""));
+    }
+
+    @Test
+    void cachedSolvesRepeatTheSameMoves() {
+        String first = run(board -> {
+            board.cmd("setState " + BOARDS.get(3));
+            board.cmd("solve A* h2 maxnodes=1000000");
+        });
+        String again = run(board -> {
+            board.cmd("cache on");
+            board.cmd("setState " + BOARDS.get(3));
+            board.cmd("solve A* h2 maxnodes=1000000");
+            board.cmd("solve A* h2 maxnodes=1000000");
+        });
+        String moves = first.substring(first.indexOf("Move sequence:"));
+        assertTrue(again.endsWith(moves));
+        assertTrue(again.contains("Nodes created during search: 0"), "the second solve is a cache hit");
+    }
+
+    @Test
+    void cacheHitsKeepTheSolveLimits() {
+        String output = run(board -> {
+            board.cmd("cache on");
+            board.cmd("setState " + BOARDS.get(3));
+            board.cmd("solve BFS maxnodes=1000000");
+            board.cmd("solve BFS maxnodes=10");
+            board.cmd("solve IDDFS maxnodes=50000000");
+            board.cmd("solve IDDFS maxnodes=50000000 depthlimit=10");
+        });
+        assertTrue(output.contains("Error: maxnodes limit (10) reached"), output);
+        assertTrue(output.endsWith("Error: no solution found" + System.lineSeparator()), output);
+    }
+
+    @Test
+    void batchMatchesCommandFile() throws IOException {
+        assertBatchMatches(List.of(
+                "// groups of their own",
+                "stats",
+                "setSeed 5",
+                "setState " + BOARDS.get(0),
+                "stats",
+                "solve A* h2",
+                "scrambleState 20",
+                "solve BFS maxnodes=100000",
+                "setState " + BOARDS.get(1),
+                "stats",
+                "setState 1 0 2 3 4 5 6 8 7",
+                "solve A* h1",
+                "setState " + BOARDS.get(2),
+                "solve IDA* h3",
+                "stats"));
+    }
+
+    @Test
+    void batchMatchesCommandFileWithCache() throws IOException {
+        assertBatchMatches(List.of(
+                "setState " + BOARDS.get(3),
+                "solve A* h2 maxnodes=100000",
+                "cache on",
+                "solve A* h2 maxnodes=100000",
+                "setState " + BOARDS.get(2),
+                "solve A* h2 maxnodes=100000",
+                "setState " + BOARDS.get(3),
+                "solve A* h2 maxnodes=100000",
+                "cache"));
+    }
+
+    @Test
+    void serverSharesSolvesOnlyWithoutCache() {
+        EightPuzzle board = new EightPuzzle(new PrintStream(new ByteArrayOutputStream()));
+        assertNotNull(board.stateKey());
+        board.cmd("cache on");
+        assertNull(board.stateKey());
+    }
+
+    private void assertBatchMatches(List<String> lines) throws IOException {
+        Path file = dir.resolve("commands.txt");
+        Files.write(file, lines);
+        String sequential = run(board -> board.cmdfile(file.toString()));
+        String batch = run(board -> board.batchfile(file.toString()));
+        assertEquals(unmeasured(sequential), unmeasured(batch));
+    }
+
+    /**
+     * run() gives a new board commands and returns what it printed
+     */
+    private static String run(Consumer<EightPuzzle> commands) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8);
+        commands.accept(new EightPuzzle(out));
+        out.flush();
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * unmeasured() drops the lines of 'stats' output that differ between runs of the same solve
+     */
+    private static String unmeasured(String output) {
+        return without(output, "Wall time: ", "Allocated bytes: ");
+    }
+
+    /**
+     * lengths() keeps the lines of solve output that must not depend on the cache: everything but node counts and
+     * the moves, since a cached path may be a different optimal one
+     */
+    private static String lengths(String output) {
+        return without(output, "Nodes created", "move ");
+    }
+
+    private static String without(String output, String... prefixes) {
+        return output.lines()
+                .filter(line -> Arrays.stream(prefixes).noneMatch(line::startsWith))
+                .collect(Collectors.joining(System.lineSeparator(), "", System.lineSeparator()));
+    }
+}
@@ -0,0 +1,189 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Tests of the solvers through SolverEngine: every optimal solver must return a valid solution as short as ORACLE's
+ * (or IDA*'s on 4x4 boards), and the bounded ones must stay within their bound
+ */
+class SolverEngineTest {
+    // 3x3 boards at 14, 16, 22 and 27 moves from the goal
+    private static final String EASY = "6 3 0 7 4 1 8 5 2";
+    private static final String MEDIUM = "2 8 5 1 0 4 6 3 7";
+    private static final String HARD = "0 7 1 8 3 6 4 2 5";
+    private static final String HARDEST = "8 6 7 2 5 4 3 0 1";
+
+    // a 4x4 board 20 moves from the goal
+    private static final String LARGE = "4 1 3 7 8 5 2 15 10 12 11 6 9 0 13 14";
+
+    private static final int MAXNODES = 5_000_000;
+
+    private final SolverEngine engine = new SolverEngine();
+
+    @ParameterizedTest
+    @ValueSource(strings = {EASY, MEDIUM, HARD, HARDEST})
+    void optimalSolversMatchOracle(String board) {
+        int[] tiles = tiles(board);
+        int optimal = optimalLength(tiles);
+        for (SolveRequest request : List.of(
+                SolveRequest.of("BFS").withMaxNodes(MAXNODES),
+                SolveRequest.of("BIBFS").withMaxNodes(MAXNODES),
+                SolveRequest.of("EBFS").withMaxNodes(MAXNODES),
+                SolveRequest.of("A*", "h1").withMaxNodes(MAXNODES),
+                SolveRequest.of("A*", "h2").withMaxNodes(MAXNODES),
+                SolveRequest.of("A*", "h3").withMaxNodes(MAXNODES),
+                SolveRequest.of("A*", "pdb").withMaxNodes(MAXNODES),
+                SolveRequest.of("A*", "h2").withFrontier("bucket").withMaxNodes(MAXNODES),
+                SolveRequest.of("IDA*", "h2").withMaxNodes(MAXNODES),
+                SolveRequest.of("IDA*", "pdb").withMaxNodes(MAXNODES),
+                SolveRequest.of("PA*", "h2").withThreads(1).withMaxNodes(MAXNODES),
+                SolveRequest.of("PA*", "h2").withThreads(4).withMaxNodes(MAXNODES),
+                SolveRequest.of("SMA*", "h2").withMaxNodes(1000),
+                SolveRequest.of("WA*", "h2").withWeight(1).withMaxNodes(MAXNODES))) {
+            assertOptimal(tiles, request, optimal);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {EASY, MEDIUM, HARD})
+    void iddfsFindsShortestSolutionWithinDepthLimit(String board) {
+        int[] tiles = tiles(board);
+        int optimal = optimalLength(tiles);
+        assertOptimal(tiles, SolveRequest.of("IDDFS").withMaxNodes(50_000_000), optimal);
+
+        SolveResult shallow = engine.solve(tiles, SolveRequest.of("IDDFS").withMaxNodes(50_000_000)
+                .withDepthLimit(optimal));
+        assertFalse(shallow.solved(), "a depth limit of " + optimal + " only allows bounds below it");
+        assertEquals(SearchStats.NO_SOLUTION, shallow.stats.outcome);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {EASY, MEDIUM, HARD, HARDEST})
+    void weightedAStarStaysWithinItsBound(String board) {
+        int[] tiles = tiles(board);
+        int optimal = optimalLength(tiles);
+        for (double weight : new double[] {1.5, 2, 5}) {
+            SolveResult result = engine.solve(tiles, SolveRequest.of("WA*", "h2").withWeight(weight)
+                    .withMaxNodes(MAXNODES));
+            assertValid(tiles, result);
+            assertTrue(result.solution.size() <= weight * optimal,
+                    "w=" + weight + " gave " + result.solution.size() + " moves, optimal is " + optimal);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {EASY, MEDIUM, HARD, HARDEST})
+    void araStarImprovesToAnOptimalSolution(String board) {
+        int[] tiles = tiles(board);
+        int optimal = optimalLength(tiles);
+        List<Integer> lengths = new ArrayList<>();
+        SolveRequest request = SolveRequest.of("ARA*", "h2").withWeight(3).withMaxNodes(MAXNODES)
+                .withImprovements((moves, bound) -> {
+                    assertTrue(moves.size() <= bound * optimal + 1e-9, moves.size() + " moves exceed bound " + bound);
+                    lengths.add(moves.size());
+                });
+        SolveResult result = engine.solve(tiles, request);
+        assertOptimal(tiles, result, optimal);
+        assertFalse(lengths.isEmpty());
+        for (int i = 1; i < lengths.size(); i++) {
+            assertTrue(lengths.get(i) < lengths.get(i - 1), "improvements must be shorter: " + lengths);
+        }
+        assertEquals(optimal, lengths.get(lengths.size() - 1));
+    }
+
+    @Test
+    void ebfsResumesAfterMaxnodes() {
+        int[] tiles = tiles(HARDEST);
+        int optimal = optimalLength(tiles);
+        SolveResult stopped = engine.solve(tiles, SolveRequest.of("EBFS").withMaxNodes(1000).withBuffer(64));
+        assertEquals(SearchStats.MAXNODES, stopped.stats.outcome);
+        assertTrue(stopped.messages.contains("Layer files kept in"), stopped.messages);
+
+        SolveResult resumed = engine.solve(tiles, SolveRequest.of("EBFS").withMaxNodes(MAXNODES).withBuffer(64));
+        assertTrue(resumed.messages.contains("Resumed after depth"), resumed.messages);
+        assertOptimal(tiles, resumed, optimal);
+        assertFalse(ExternalBfs.ROOT.toFile().exists(), "a finished search deletes its layer files");
+    }
+
+    @Test
+    void largeBoardSolversMatchIdaStar() {
+        int[] tiles = tiles(LARGE);
+        SolveResult reference = engine.solve(tiles, SolveRequest.of("IDA*", "pdb"));
+        assertValid(tiles, reference);
+        int optimal = reference.solution.size();
+        assertEquals(20, optimal);
+        for (SolveRequest request : List.of(
+                SolveRequest.of("A*", "h3").withMaxNodes(MAXNODES),
+                SolveRequest.of("A*", "pdb").withMaxNodes(MAXNODES),
+                SolveRequest.of("BIBFS").withMaxNodes(MAXNODES),
+                SolveRequest.of("PA*", "pdb").withThreads(4).withMaxNodes(MAXNODES),
+                SolveRequest.of("SMA*", "pdb").withMaxNodes(10_000),
+                SolveRequest.of("ARA*", "h2").withMaxNodes(MAXNODES))) {
+            assertOptimal(tiles, request, optimal);
+        }
+    }
+
+    @Test
+    void unsolvableBoardsAreRejected() {
+        int[] tiles = tiles("1 0 2 3 4 5 6 8 7");
+        for (String algorithm : new String[] {"BFS", "IDDFS", "ORACLE"}) {
+            SolveResult result = engine.solve(tiles, SolveRequest.of(algorithm));
+            assertEquals(SearchStats.UNSOLVABLE, result.stats.outcome, algorithm);
+        }
+    }
+
+    /**
+     * optimalLength() returns the length of an optimal solution by ORACLE, checking it against IDA* with the pattern
+     * databases
+     */
+    private int optimalLength(int[] tiles) {
+        SolveResult oracle = engine.solve(tiles, SolveRequest.of("ORACLE"));
+        assertValid(tiles, oracle);
+        SolveResult idaStar = engine.solve(tiles, SolveRequest.of("IDA*", "pdb"));
+        assertEquals(oracle.solution.size(), idaStar.solution.size(), "ORACLE and IDA* disagree");
+        return oracle.solution.size();
+    }
+
+    private void assertOptimal(int[] tiles, SolveRequest request, int optimal) {
+        assertOptimal(tiles, engine.solve(tiles, request), optimal);
+    }
+
+    private static void assertOptimal(int[] tiles, SolveResult result, int optimal) {
+        assertValid(tiles, result);
+        assertEquals(optimal, result.solution.size(), result.stats.algorithm + " on " + Arrays.toString(tiles));
+    }
+
+    /**
+     * assertValid() checks that a solve succeeded and that its moves take the board to the goal
+     */
+    private static void assertValid(int[] tiles, SolveResult result) {
+        assertTrue(result.solved(), result.stats.algorithm + ": " + result.stats.outcome + " " + result.messages);
+        Board board = Board.forCells(tiles.length);
+        int[] state = tiles.clone();
+        int blank = 0;
+        while (state[blank] != 0) blank++;
+        for (String label : result.solution) {
+            int target = board.target(blank, Move.parse(label).code());
+            assertTrue(target >= 0, "illegal move " + label);
+            state[blank] = state[target];
+            state[target] = 0;
+            blank = target;
+        }
+        assertArrayEquals(board.goalTiles(), state, result.stats.algorithm + " does not reach the goal");
+    }
+
+    static int[] tiles(String board) {
+        return Arrays.stream(board.split(" ")).mapToInt(Integer::parseInt).toArray();
+    }
+}
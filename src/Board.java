@@ -0,0 +1,244 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Geometry of a width x width sliding puzzle (3x3, 4x4 or 5x5) and the packed-long layout used for boards of up to
+ * 16 cells
+ *
+ * Cells are indexed row by row (width * row + column). In the goal state tile t sits on cell t, so the blank (tile 0)
+ * is in the top left corner. Boards of up to 16 cells pack into a single long with the tile on cell k in bits 4k to
+ * 4k + 3; the blank is found from the one zero nibble, so no extra bits are needed and a 4x4 board fills the long.
+ */
+public final class Board {
+    public static final int MIN_WIDTH = 3;
+    public static final int MAX_WIDTH = 5;
+
+    private static final Board[] BOARDS = new Board[MAX_WIDTH + 1];
+
+    static {
+        for (int width = MIN_WIDTH; width <= MAX_WIDTH; width++) {
+            BOARDS[width] = new Board(width);
+        }
+    }
+
+    public final int width;
+    public final int cells;
+
+    // targets[4 * cell + dir]: the cell the blank moves to from cell in direction dir (see Move), or -1 if that
+    // leaves the board
+    private final int[] targets;
+
+    // legalMoves[cell]: bit dir is set if the blank can move in direction dir from cell
+    private final byte[] legalMoves;
+
+    // manhattan[cells * tile + cell]: distance from cell to tile's goal cell
+    private final int[] manhattan;
+
+    // [tile][from][to] tables, flattened to (cells * tile + from) * cells + to: the change in a tile's Manhattan
+    // distance (h2) and in whether it is misplaced (h1) when it moves from one cell to another
+    private final byte[] manhattanDelta;
+    private final byte[] misplacedDelta;
+
+    private Board(int width) {
+        this.width = width;
+        this.cells = width * width;
+        this.targets = new int[4 * cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / width;
+            int col = cell % width;
+            targets[4 * cell] = col > 0 ? cell - 1 : -1;
+            targets[4 * cell + 1] = col < width - 1 ? cell + 1 : -1;
+            targets[4 * cell + 2] = row > 0 ? cell - width : -1;
+            targets[4 * cell + 3] = row < width - 1 ? cell + width : -1;
+        }
+        this.legalMoves = new byte[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            for (int dir = 0; dir < 4; dir++) {
+                if (targets[4 * cell + dir] >= 0) legalMoves[cell] |= (byte) (1 << dir);
+            }
+        }
+        this.manhattan = new int[cells * cells];
+        for (int tile = 0; tile < cells; tile++) {
+            for (int cell = 0; cell < cells; cell++) {
+                manhattan[cells * tile + cell] =
+                        Math.abs(tile / width - cell / width) + Math.abs(tile % width - cell % width);
+            }
+        }
+        this.manhattanDelta = new byte[cells * cells * cells];
+        this.misplacedDelta = new byte[cells * cells * cells];
+        for (int tile = 1; tile < cells; tile++) {
+            for (int from = 0; from < cells; from++) {
+                for (int to = 0; to < cells; to++) {
+                    int index = (cells * tile + from) * cells + to;
+                    manhattanDelta[index] = (byte) (manhattan[cells * tile + to] - manhattan[cells * tile + from]);
+                    misplacedDelta[index] = (byte) ((to != tile ? 1 : 0) - (from != tile ? 1 : 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * of() returns the board geometry for a width
+     * @param width is 3, 4 or 5
+     * @return the shared Board, or null for an unsupported width
+     */
+    public static Board of(int width) {
+        return width >= MIN_WIDTH && width <= MAX_WIDTH ? BOARDS[width] : null;
+    }
+
+    /**
+     * forCells() returns the board geometry with the given number of cells
+     * @param cells is 9, 16 or 25
+     * @return the shared Board, or null if no supported board has that many cells
+     */
+    public static Board forCells(int cells) {
+        for (int width = MIN_WIDTH; width <= MAX_WIDTH; width++) {
+            if (width * width == cells) return BOARDS[width];
+        }
+        return null;
+    }
+
+    /**
+     * target() gives the cell the blank moves to
+     * @param blank is the blank's cell
+     * @param dir is the direction code
+     * @return the target cell, or -1 if the move is not valid
+     */
+    public int target(int blank, int dir) {
+        return targets[4 * blank + dir];
+    }
+
+    /**
+     * legalMoves() gives the moves the blank can make from a cell, as a bitmask of direction codes. Searches walk the
+     * set bits from lowest to highest (Integer.numberOfTrailingZeros(), then moves &= moves - 1), which generates
+     * children in direction code order.
+     * @param blank is the blank's cell
+     * @return bit dir is set if the move with direction code dir is valid
+     */
+    public int legalMoves(int blank) {
+        return legalMoves[blank];
+    }
+
+    /**
+     * manhattan() gives the distance from a cell to a tile's goal cell
+     */
+    public int manhattan(int tile, int cell) {
+        return manhattan[cells * tile + cell];
+    }
+
+    /**
+     * manhattanDelta() gives the change in a tile's Manhattan distance when it moves from one cell to another
+     */
+    public int manhattanDelta(int tile, int from, int to) {
+        return manhattanDelta[(cells * tile + from) * cells + to];
+    }
+
+    /**
+     * misplacedDelta() gives the change in the number of misplaced tiles when a tile moves from one cell to another
+     */
+    public int misplacedDelta(int tile, int from, int to) {
+        return misplacedDelta[(cells * tile + from) * cells + to];
+    }
+
+    /**
+     * goalTiles() returns the goal board: tile t on cell t
+     */
+    public int[] goalTiles() {
+        int[] tiles = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            tiles[cell] = cell;
+        }
+        return tiles;
+    }
+
+    /**
+     * isSolvable() checks whether a board can reach the goal state, from the parity of its inversions (pairs of
+     * non-blank tiles out of order, read row by row). A horizontal move never changes the inversions. A vertical move
+     * carries one tile past width - 1 others, so it changes them by an odd amount on odd widths and an even amount on
+     * even widths. The invariant is therefore the inversion parity on odd widths. On even widths it is the parity of
+     * inversions plus the blank's row, since each vertical move also changes the row by one. The goal has no
+     * inversions and its blank is in row 0. A board that does not hold each tile exactly once (like the empty board
+     * left by an invalid setState) can never reach the goal either.
+     * @param tiles gives the tile on each cell
+     * @return true if the goal state is reachable
+     */
+    public boolean isSolvable(int[] tiles) {
+        int inversions = 0;
+        int blankRow = 0;
+        int seen = 0;
+        for (int i = 0; i < cells; i++) {
+            if ((seen & (1 << tiles[i])) != 0) return false;
+            seen |= 1 << tiles[i];
+            if (tiles[i] == 0) {
+                blankRow = i / width;
+                continue;
+            }
+            for (int j = i + 1; j < cells; j++) {
+                if (tiles[j] != 0 && tiles[i] > tiles[j]) inversions++;
+            }
+        }
+        if (width % 2 == 0) inversions += blankRow;
+        return (inversions & 1) == 0;
+    }
+
+    /**
+     * fitsInLong() is true when a board packs into one long (at most 16 cells)
+     */
+    public boolean fitsInLong() {
+        return cells <= 16;
+    }
+
+    /**
+     * pack() packs a board of at most 16 cells into a long, 4 bits per cell
+     * @param tiles gives the tile on each cell
+     * @return the packed state
+     */
+    public long pack(int[] tiles) {
+        long packed = 0L;
+        for (int cell = 0; cell < cells; cell++) {
+            packed |= (long) tiles[cell] << (cell << 2);
+        }
+        return packed;
+    }
+
+    /**
+     * unpack() is the inverse of pack()
+     * @param packed is the packed state
+     * @param tiles receives the tile on each cell
+     */
+    public void unpack(long packed, int[] tiles) {
+        for (int cell = 0; cell < cells; cell++) {
+            tiles[cell] = tileAt(packed, cell);
+        }
+    }
+
+    /**
+     * tileAt() returns the tile on a cell of a packed state
+     */
+    public static int tileAt(long packed, int cell) {
+        return (int) (packed >>> (cell << 2)) & 0xF;
+    }
+
+    /**
+     * blankOf() finds the blank in a packed state: the only nibble (within the board) whose four bits are all 0
+     * @param packed is the packed state
+     * @return the blank's cell
+     */
+    public int blankOf(long packed) {
+        long inverted = ~packed;
+        if (cells < 16) inverted &= (1L << (cells << 2)) - 1;
+        long zero = inverted & (inverted >>> 1) & (inverted >>> 2) & (inverted >>> 3) & 0x1111111111111111L;
+        return Long.numberOfTrailingZeros(zero) >>> 2;
+    }
+
+    /**
+     * slide() moves the tile on the target cell into the blank cell of a packed state
+     * @param packed is the packed state
+     * @param blank is the blank's cell
+     * @param target is the cell the blank moves to
+     * @return the packed state after the move
+     */
+    public static long slide(long packed, int blank, int target) {
+        long tile = (packed >>> (target << 2)) & 0xF;
+        return (packed & ~(0xFL << (target << 2))) | (tile << (blank << 2));
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Bucket queue: one primitive stack per priority value. Priorities in the puzzle are small integers, so add() and
+ * poll() are O(1) apart from skipping empty buckets. Within a bucket entries come out last in, first out, which
+ * favors the most recently generated (deepest) nodes among equal f values. Each entry takes two slots of its bucket:
+ * the state, then the cost.
+ */
+public final class BucketFrontier implements Frontier {
+    private LongDeque[] buckets = new LongDeque[64];
+    private int minPriority = Integer.MAX_VALUE; // no non-empty bucket below this
+    private int size = 0;
+    private int polledCost = 0;
+
+    @Override
+    public void add(long state, int cost, int priority) {
+        if (priority >= buckets.length) {
+            LongDeque[] bigger = new LongDeque[Math.max(buckets.length << 1, priority + 1)];
+            System.arraycopy(buckets, 0, bigger, 0, buckets.length);
+            buckets = bigger;
+        }
+        if (buckets[priority] == null) buckets[priority] = new LongDeque(64);
+        buckets[priority].addLast(state);
+        buckets[priority].addLast(cost);
+        if (priority < minPriority) minPriority = priority;
+        size++;
+    }
+
+    @Override
+    public long poll() {
+        while (buckets[minPriority] == null || buckets[minPriority].isEmpty()) {
+            minPriority++;
+        }
+        size--;
+        polledCost = (int) buckets[minPriority].pollLast();
+        return buckets[minPriority].pollLast();
+    }
+
+    @Override
+    public int polledCost() {
+        return polledCost;
+    }
+
+    @Override
+    public int polledPriority() {
+        return minPriority;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,69 @@
+import java.time.Duration;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Stop signal for one solve: set when its caller cancels it or when its deadline passes. The solvers poll
+ * shouldStop() in their expansion loops and return early, so a search can be abandoned without interrupting the
+ * thread that runs it.
+ */
+public final class Cancellation {
+    // for solves that always run to the end; it is shared, so cancel() leaves it unset
+    public static final Cancellation NONE = new Cancellation(Long.MAX_VALUE);
+
+    // the clock is read on one in this many calls of shouldStop()
+    private static final int CLOCK_INTERVAL = 256;
+
+    private final long deadline; // System.nanoTime() at the deadline, or Long.MAX_VALUE for none
+    private volatile boolean cancelled = false;
+    private volatile boolean expired = false;
+
+    // calls since the clock was last read; PA* threads share it, and a lost update only delays a check
+    private int calls = 0;
+
+    private Cancellation(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * create() makes the stop signal for a solve
+     * @param timeout is how long the solve may take from now, or null for no deadline; a timeout too long for the
+     *                nanosecond clock to reach counts as none
+     * @return a signal that is not set yet
+     */
+    public static Cancellation create(Duration timeout) {
+        long now = System.nanoTime();
+        if (timeout == null || timeout.compareTo(Duration.ofNanos(Long.MAX_VALUE - Math.max(now, 0))) >= 0) {
+            return new Cancellation(Long.MAX_VALUE);
+        }
+        return new Cancellation(now + timeout.toNanos());
+    }
+
+    /**
+     * cancel() asks the solve to stop; it does nothing on NONE
+     */
+    public void cancel() {
+        if (this != NONE) cancelled = true;
+    }
+
+    /**
+     * shouldStop() is polled by the solvers once per expansion
+     * @return true if the solve was cancelled or its deadline has passed
+     */
+    public boolean shouldStop() {
+        if (cancelled || expired) return true;
+        if (deadline == Long.MAX_VALUE || (++calls & (CLOCK_INTERVAL - 1)) != 0) return false;
+        if (System.nanoTime() - deadline >= 0) expired = true;
+        return expired;
+    }
+
+    /**
+     * reason() tells why the solve stopped
+     * @return SearchStats.CANCELLED, SearchStats.DEADLINE, or null if it was not stopped
+     */
+    public String reason() {
+        if (cancelled) return SearchStats.CANCELLED;
+        if (expired) return SearchStats.DEADLINE;
+        return null;
+    }
+}
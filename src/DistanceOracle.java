@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Exact distance-to-goal table for every 3x3 state reachable from the goal state
+ *
+ * The table holds one byte per permutation rank (see PermutationRank) and is built once by a retrograde BFS from the
+ * goal. It is saved to a binary file and read back through a read-only memory mapping, so later runs skip the BFS.
+ */
+public final class DistanceOracle {
+    // table value for ranks that cannot reach the goal
+    public static final int UNREACHABLE = 0xFF;
+
+    private static final Board BOARD = Board.of(3);
+
+    private final ByteBuffer distances;
+
+    private DistanceOracle(ByteBuffer distances) {
+        this.distances = distances;
+    }
+
+    /**
+     * load() maps the table stored in the given file, building and saving it first if the file is missing or has the
+     * wrong size. If the file cannot be written, the freshly built table is kept in memory instead.
+     * @param file is the location of the table
+     * @return the oracle
+     */
+    public static DistanceOracle load(Path file) {
+        try {
+            if (!Files.exists(file) || Files.size(file) != PermutationRank.NUM_STATES) {
+                save(file, build());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, PermutationRank.NUM_STATES);
+                return new DistanceOracle(mapped);
+            }
+        } catch (IOException e) {
+            return new DistanceOracle(ByteBuffer.wrap(build()).asReadOnlyBuffer());
+        }
+    }
+
+    /**
+     * distance() looks up the exact number of moves from a state to the goal state
+     * @param state is the packed 3x3 state (see Board.pack())
+     * @return the distance, or UNREACHABLE if the state is in the other solvability class
+     */
+    public int distance(long state) {
+        if (PermutationRank.parity(state) != 0) return UNREACHABLE;
+        return distances.get(PermutationRank.rank(state)) & 0xFF;
+    }
+
+    /**
+     * build() runs a breadth-first search backwards from the goal state over the whole state space. Moves are
+     * reversible, so the BFS depth of a state is its distance to the goal.
+     * @return one distance byte per rank
+     */
+    static byte[] build() {
+        long goalState = BOARD.pack(BOARD.goalTiles());
+        byte[] table = new byte[PermutationRank.NUM_STATES];
+        Arrays.fill(table, (byte) UNREACHABLE);
+
+        LongDeque queue = new LongDeque(1 << 15);
+        table[PermutationRank.rank(goalState)] = 0;
+        queue.addLast(goalState);
+        while (!queue.isEmpty()) {
+            long state = queue.pollFirst();
+            int nextDist = table[PermutationRank.rank(state)] + 1;
+            int blank = BOARD.blankOf(state);
+            for (int moves = BOARD.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                int dir = Integer.numberOfTrailingZeros(moves);
+                int target = BOARD.target(blank, dir);
+                long next = Board.slide(state, blank, target);
+                int rank = PermutationRank.rank(next);
+                if ((table[rank] & 0xFF) != UNREACHABLE) continue;
+                table[rank] = (byte) nextDist;
+                queue.addLast(next);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * save() writes the table next to its final location and then moves it into place, so a half-written file is
+     * never mapped
+     */
+    private static void save(Path file, byte[] table) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, table);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
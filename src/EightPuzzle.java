@@ -1,6 +1,17 @@
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Mia Yang
@@ -8,26 +19,44 @@ import java.util.*;
  * Eight Puzzle Game
  */
 public class EightPuzzle {
-    // 8 puzzle game: state representation (Q3.1)
-    private int[][] board = new int[3][3];
+    // puzzle game: state representation (Q3.1), the tile on each cell row by row of a 3x3, 4x4 or 5x5 board. The
+    // solvers work on packed keys of a copy (see StateSpace) and only printState() reads it as a grid
+    private Board board = Board.of(3);
+    private int[] tiles = new int[9];
 
     // storing current seed for Randomization of moves
     private long currSeed = 0;
 
-    // goal state
-    private final int[][] goal =
-                {{0, 1, 2},
-                 {3, 4, 5},
-                 {6, 7, 8}};
-
-    // optional maxNodes argument is set to default value
-    private int maxNodes = 1000;
-
     // stores the number of puzzle states seen for the most recent solve
     private int numNodes = 0;
 
-    // depth limit for solving DFS
-    private int depthLimit = 31;
+    // statistics of the most recent solve for the 'stats' command
+    private SearchStats lastStats = null;
+
+    // optimal solutions of earlier solves, or null while the 'cache' command has not turned it on
+    private SolutionCache cache = null;
+
+    // in batchfile(), the group run before this board's, whose statistics 'stats' shows until this board solves
+    private BatchGroup earlierGroup = null;
+
+    // runs the solves of every board; it keeps no state, so all boards share it
+    private static final SolverEngine ENGINE = new SolverEngine();
+
+    // where command output goes; batchfile() gives each worker its own buffer
+    private PrintStream out = System.out;
+
+    // command groups solved ahead of the one being printed by batchfile(), per worker thread
+    private static final int BATCH_WINDOW = 16;
+
+    public EightPuzzle() {
+    }
+
+    /**
+     * EightPuzzle() makes a board whose command output goes to a stream instead of the console (see SolveServer)
+     */
+    EightPuzzle(PrintStream out) {
+        this.out = out;
+    }
 
     /**
      * cmd() takes a command string as input, parses it, and calls the appropriate internal method with the specified
@@ -38,73 +67,6 @@ public class EightPuzzle {
         String command = commandString.trim();
         String[] args = command.split(" ", 2);
 
-        // handling optional arguments for 'solve BFS'
-        String solveCase1 = "solve BFS";
-        if (command.startsWith(solveCase1) && command.length() > solveCase1.length()) {
-            args = command.split(" ", 3);
-            if (args.length == 3 && args[2].startsWith("maxnodes=") && args[2].length() > 9) {
-                try {
-                    this.maxNodes = Integer.parseInt(args[2].substring(9));
-                } catch (NumberFormatException e) {
-                    printErrorLine(command);
-                    return;
-                }
-            } else {
-                printErrorLine(command);
-                return;
-            }
-        }
-
-        // handling optional arguments for 'solve DFS'
-        String solveCase2 = "solve DFS";
-        if (command.startsWith(solveCase2) && command.length() > solveCase2.length()) {
-            args = command.split(" ", 4);
-            for (int i = 2; i < args.length; i++) {
-                try {
-                    if (args[i].startsWith("maxnodes=") && args[i].length() > 9) {
-                        this.maxNodes = Integer.parseInt(args[i].substring(9));
-                    } else if (args[i].startsWith("depthlimit=") && args[i].length() > 11) {
-                        this.depthLimit = Integer.parseInt(args[i].substring(11));
-                    } else {
-                        printErrorLine(command);
-                        return;
-                    }
-                } catch (NumberFormatException e) {
-                    printErrorLine(command);
-                    return;
-                }
-            }
-        }
-
-        // handling arguments for 'solve A*'
-        String solveCase3 = "solve A*";
-        if (command.startsWith(solveCase3) && command.length() >= (solveCase3.length() + 3)) {
-            args = command.split(" ", 4);
-
-            // heuristic function input can only be 'h1' or 'h2'
-            if (!args[2].equals("h1") && !args[2].equals("h2")) {
-                printErrorLine(command);
-                return;
-            }
-
-            if (args.length == 4) {
-                if (args[3].startsWith("maxnodes=") && args[3].length() > 9) {
-                    try {
-                        this.maxNodes = Integer.parseInt(args[3].substring(9));
-                    } catch (NumberFormatException e) {
-                        printErrorLine(command);
-                        return;
-                    }
-                } else {
-                    printErrorLine(command);
-                    return;
-                }
-            }
-        } else if (command.startsWith(solveCase3) && command.length() < (solveCase3.length() + 3)) {
-            printErrorLine(command);
-            return;
-        }
-
         String commandType = args[0];
         switch(commandType) {
             case "setState":
@@ -127,7 +89,7 @@ public class EightPuzzle {
                     printErrorLine(command);
                     return;
                 }
-                this.board = move(args[1], this.board);
+                this.tiles = move(args[1], this.tiles);
                 printState();
                 break;
             case "scrambleState":
@@ -138,65 +100,399 @@ public class EightPuzzle {
                 scrambleState(args[1]);
                 printState();
                 break;
-            case "setSeed":
-                if (args.length != 2) {
+            case "stats":
+                if (args.length != 1) {
                     printErrorLine(command);
                     return;
                 }
-                setSeed(args[1]);
+                if (this.lastStats == null && this.earlierGroup != null) {
+                    this.lastStats = this.earlierGroup.finalStats(); // the last solve was in an earlier batch group
+                }
+                if (this.lastStats == null) {
+                    this.out.println("Error: no solve has run yet");
+                    return;
+                }
+                this.lastStats.print(this.out);
                 break;
-            case "solve":
-                if (args.length == 1) {
+            case "cache":
+                if (args.length > 2) {
                     printErrorLine(command);
                     return;
                 }
-
-                if (args[1].equals("BFS")) {
-                    List<String> solution = solveBFS();
-                    if (!solution.isEmpty()) printSolution(solution);
-                    break;
-                } else if (args[1].equals("DFS")) {
-                    List<String> solution = solveDFS();
-                    if (!solution.isEmpty()) printSolution(solution);
-                    break;
-                } else if (args[1].equals("A*")) {
-                    List<String> solution = solveAStar(args[2]);
-                    if (!solution.isEmpty()) printSolution(solution);
-                    break;
+                if (args.length == 2 && !configureCache(args[1])) {
+                    printErrorLine(command);
+                    return;
+                }
+                if (this.cache == null) {
+                    this.out.println("Solution cache: off");
                 } else {
+                    this.cache.print(this.out);
+                }
+                break;
+            case "bfs-all":
+                if (args.length > 2 || !bfsAll(args.length == 2 ? args[1] : null)) {
                     printErrorLine(command);
                     return;
                 }
+                break;
+            case "setSeed":
+                if (args.length != 2) {
+                    printErrorLine(command);
+                    return;
+                }
+                setSeed(args[1]);
+                break;
+            case "solve":
+                solveCommand(command);
+                break;
             default:
                 printErrorLine(command);
         }
     }
 
+    /**
+     * solveCommand() is a helper method for cmd() that reads a solve command in one pass over its words: the
+     * algorithm, the heuristic for the informed searches, then up to as many name=value options as the algorithm
+     * takes. Anything else is an invalid command.
+     * @param command is the trimmed command line
+     */
+    private void solveCommand(String command) {
+        String[] words = command.split(" ");
+        String algorithm = words.length > 1 ? words[1] : "";
+        // 'solve DFS iterative' is the iterative-deepening mode of DFS, the same solve as 'solve IDDFS', and
+        // 'solve BFS external' the disk-backed mode of BFS, the same solve as 'solve EBFS'; the mode word is dropped
+        // so the options start at the same word as for the other uninformed searches
+        String mode = words.length > 2 ? words[2] : "";
+        if (algorithm.equals("DFS") && mode.equals("iterative") || algorithm.equals("BFS") && mode.equals("external")) {
+            algorithm = algorithm.equals("DFS") ? "IDDFS" : "EBFS";
+            String[] rest = new String[words.length - 1];
+            rest[0] = words[0];
+            rest[1] = algorithm;
+            System.arraycopy(words, 3, rest, 2, words.length - 3);
+            words = rest;
+        }
+        boolean informed;
+        int maxOptions;
+        String[] options;
+        switch (algorithm) {
+            case "BFS":
+            case "BIBFS":
+                informed = false;
+                maxOptions = 1;
+                options = new String[]{"maxnodes"};
+                break;
+            case "EBFS": // buffer is the number of children sorted in memory at a time
+                informed = false;
+                maxOptions = 2;
+                options = new String[]{"maxnodes", "buffer"};
+                break;
+            case "DFS":
+            case "IDDFS":
+                informed = false;
+                maxOptions = 2;
+                options = new String[]{"maxnodes", "depthlimit"};
+                break;
+            case "ORACLE":
+                informed = false;
+                maxOptions = 0;
+                options = new String[0];
+                break;
+            case "A*":
+                informed = true;
+                maxOptions = 2;
+                options = new String[]{"maxnodes", "frontier"};
+                break;
+            case "PA*":
+                informed = true;
+                maxOptions = 2;
+                options = new String[]{"maxnodes", "threads"};
+                break;
+            case "SMA*": // maxnodes is the most nodes it keeps in memory
+                informed = true;
+                maxOptions = 1;
+                options = new String[]{"maxnodes"};
+                break;
+            case "WA*":
+                informed = true;
+                maxOptions = 3;
+                options = new String[]{"maxnodes", "frontier", "w"};
+                break;
+            case "ARA*": // time is the deadline in milliseconds, after which it returns its best solution
+                informed = true;
+                maxOptions = 4;
+                options = new String[]{"maxnodes", "frontier", "w", "time"};
+                break;
+            case "IDA*": // it keeps no seen states, so maxnodes does not apply
+                informed = true;
+                maxOptions = 0;
+                options = new String[0];
+                break;
+            default:
+                printErrorLine(command);
+                return;
+        }
+
+        // heuristic function input can only be 'h1', 'h2', 'h3' or 'pdb'
+        int first = informed ? 3 : 2;
+        boolean badHeuristic = informed && words.length > 2 && !SearchRun.isHeuristic(words[2]);
+        if (words.length < first || words.length > first + maxOptions || badHeuristic) {
+            printErrorLine(command);
+            return;
+        }
+        SolveRequest request = SolveRequest.of(algorithm, informed ? words[2] : null);
+        for (int i = first; i < words.length; i++) {
+            String word = words[i];
+            int equals = word.indexOf('=');
+            String name = equals < 0 ? "" : word.substring(0, equals);
+            String value = word.substring(equals + 1);
+            if (value.isEmpty() || !Arrays.asList(options).contains(name)) {
+                printErrorLine(command);
+                return;
+            }
+            try {
+                switch (name) {
+                    case "maxnodes":
+                        request = request.withMaxNodes(Integer.parseInt(value));
+                        break;
+                    case "depthlimit":
+                        request = request.withDepthLimit(Integer.parseInt(value));
+                        break;
+                    case "threads":
+                        int threads = Integer.parseInt(value);
+                        if (threads < 1) throw new NumberFormatException();
+                        request = request.withThreads(threads);
+                        break;
+                    case "buffer":
+                        int buffer = Integer.parseInt(value);
+                        if (buffer < 4) throw new NumberFormatException();
+                        request = request.withBuffer(buffer);
+                        break;
+                    case "w":
+                        double weight = Double.parseDouble(value);
+                        if (!(weight >= 1 && weight <= SolveRequest.MAX_WEIGHT)) throw new NumberFormatException();
+                        request = request.withWeight(weight);
+                        break;
+                    case "time":
+                        int millis = Integer.parseInt(value); // up to about 24 days
+                        if (millis < 0) throw new NumberFormatException();
+                        request = request.withDeadline(Duration.ofMillis(millis));
+                        break;
+                    default:
+                        if (Frontier.create(value) == null) throw new NumberFormatException();
+                        request = request.withFrontier(value);
+                }
+            } catch (NumberFormatException e) {
+                printErrorLine(command);
+                return;
+            }
+        }
+
+        if (algorithm.equals("ARA*")) {
+            request = request.withImprovements((moves, bound) -> this.out.println("Improved solution: length "
+                    + moves.size() + ", at most " + String.format("%.2f", bound) + " times optimal"));
+        }
+
+        List<String> solution = solve(request);
+        if (!solution.isEmpty()) printSolution(solution);
+    }
+
     /**
      * cmdfile() takes a file name as an argument read lines of commands from a text file and prints the result.
      * @param filename is the test case file
      */
     public void cmdfile(String filename) {
-        try (Scanner fileReader = new Scanner(new File(filename))) {
-            while (fileReader.hasNextLine()) {
-                String line = fileReader.nextLine();
+        try (LineReader fileReader = LineReader.open(filename)) {
+            for (String line = fileReader.readLine(); line != null; line = fileReader.readLine()) {
+                runLine(line);
+            }
+        } catch (FileNotFoundException e) {
+            this.out.println("Error: File not found: " + e.getMessage());
+        } catch (IOException e) {
+            this.out.println("Error: cannot read file: " + e.getMessage());
+        }
+    }
 
-                // all comments, commands, and empty lines are printed to console
-                System.out.println(line);
+    /**
+     * runLine() is a helper method for cmdfile() and batchfile() that echoes one line of a command file and runs it
+     * @param line is the line
+     */
+    private void runLine(String line) {
+        // all comments, commands, and empty lines are printed to console
+        this.out.println(line);
 
-                // calling cmd function to run the actual command
-                if (!line.startsWith("//") && !line.isEmpty()) {
-                    cmd(line);
+        // calling cmd function to run the actual command
+        if (!line.startsWith("//") && !line.isEmpty()) {
+            cmd(line);
+        }
+    }
+
+    /**
+     * batchfile() runs a command file like cmdfile(), but splits it into groups at every setState that replaces the
+     * board and runs the groups in parallel on a work-stealing pool. A group only depends on the seed left by earlier
+     * setSeed commands, which is worked out up front, so each group gets a board of its own and its output is
+     * buffered and printed in file order. A 'stats' command before the first solve of its group waits for the
+     * groups before it. The solution cache changes what later solves print, so once it is on, or a cache command has
+     * been read, the rest of the file runs as one group. The output is the same as cmdfile()'s.
+     * @param filename is the test case file
+     */
+    public void batchfile(String filename) {
+        LineReader fileReader;
+        try {
+            fileReader = LineReader.open(filename);
+        } catch (FileNotFoundException e) {
+            this.out.println("Error: File not found: " + e.getMessage());
+            return;
+        }
+
+        // tracks the seed through the file without printing anything
+        EightPuzzle seeds = new EightPuzzle();
+        seeds.out = new PrintStream(OutputStream.nullOutputStream());
+        seeds.currSeed = this.currSeed;
+
+        // groups are cut while the file is read, so only the lines of the groups in the window are held
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int window = BATCH_WINDOW * pool.getParallelism();
+        Deque<BatchGroup> pending = new ArrayDeque<>();
+        BatchGroup last = null;
+        boolean cached = this.cache != null;
+        List<String> lines = new ArrayList<>();
+        long startSeed = this.currSeed;
+        IOException readError = null;
+        try (fileReader) {
+            while (true) {
+                String line;
+                try {
+                    line = fileReader.readLine();
+                } catch (IOException e) {
+                    readError = e; // the lines read so far still run, as in cmdfile()
+                    line = null;
+                }
+                if (line == null || (!lines.isEmpty() && !cached && startsGroup(line))) {
+                    // the first group continues from this board, the others start from their own setState
+                    EightPuzzle worker = new EightPuzzle();
+                    if (last == null) {
+                        worker.board = this.board;
+                        worker.tiles = this.tiles.clone();
+                        worker.lastStats = this.lastStats;
+                        worker.cache = this.cache;
+                    }
+                    worker.currSeed = startSeed;
+                    worker.earlierGroup = last;
+                    last = new BatchGroup(worker, lines);
+                    pending.addLast(last);
+                    pool.execute(last);
+                    lines = new ArrayList<>();
+                    startSeed = seeds.currSeed;
+                    while (pending.size() > window) {
+                        printGroup(pending.pollFirst());
+                    }
+                    if (line == null) break;
                 }
+                lines.add(line);
+                String command = line.trim();
+                if (command.startsWith("setSeed")) seeds.cmd(command);
+                if (command.startsWith("cache")) cached = true;
             }
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: File not found: " + e.getMessage());
+        } catch (IOException e) {
+            if (readError == null) readError = e;
+        }
+        while (!pending.isEmpty()) {
+            printGroup(pending.pollFirst());
+        }
+        if (readError != null) this.out.println("Error: cannot read file: " + readError.getMessage());
+
+        this.board = last.board.board;
+        this.tiles = last.board.tiles;
+        this.currSeed = last.board.currSeed;
+        this.lastStats = last.finalStats();
+        this.cache = last.board.cache;
+    }
+
+    /**
+     * printGroup() is a helper method for batchfile() that waits for a group and prints its output
+     * @param group is the group
+     */
+    private void printGroup(BatchGroup group) {
+        group.join();
+        byte[] output = group.output.toByteArray();
+        this.out.write(output, 0, output.length);
+        this.out.flush();
+        if (group.failure != null) throw group.failure;
+    }
+
+    /**
+     * startsGroup() is a helper method for batchfile() that checks if a line is a setState command that replaces the
+     * board (one that is not rejected outright), so nothing before it affects the commands after it
+     * @param line is the line
+     * @return true if the line starts an independent group
+     */
+    private static boolean startsGroup(String line) {
+        if (line.startsWith("//") || line.isEmpty()) return false;
+        String[] args = line.trim().split(" ", 2);
+        if (args.length != 2 || !args[0].equals("setState")) return false;
+
+        String[] states = args[1].trim().split(" ");
+        Set<Integer> uniqNums = new HashSet<>();
+        try {
+            for (String num : states) {
+                if (!uniqNums.add(Integer.parseInt(num))) return false;
+            }
+        } catch (NumberFormatException e) {
+            return false;
         }
+        return Board.forCells(uniqNums.size()) != null;
     }
 
+    /**
+     * BatchGroup runs one group of commands for batchfile() on its own board and keeps the output. If a command
+     * throws, the output so far is kept and the exception is rethrown when the group is printed.
+     */
+    private static final class BatchGroup extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final EightPuzzle board;
+        final List<String> lines;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RuntimeException failure = null;
+
+        BatchGroup(EightPuzzle board, List<String> lines) {
+            this.board = board;
+            this.lines = lines;
+        }
+
+        /**
+         * finalStats() waits for the group and returns the statistics the 'stats' command shows after it: those of
+         * its last solve, or else of the groups before it
+         */
+        SearchStats finalStats() {
+            BatchGroup group = this;
+            while (true) {
+                group.join();
+                EightPuzzle board = group.board;
+                if (board.lastStats != null || board.earlierGroup == null) return board.lastStats;
+                group = board.earlierGroup;
+            }
+        }
+
+        @Override
+        protected void compute() {
+            board.out = new PrintStream(output);
+            try {
+                for (String line : lines) {
+                    board.runLine(line);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            board.out.flush();
+            // a group with a solve of its own never looks further back, so the groups before it can be freed
+            if (board.lastStats != null) board.earlierGroup = null;
+        }
+    }
 
     /**
-     * setState() sets the current state of the puzzle based on the order of numbers in input argument
+     * setState() sets the current state of the puzzle based on the order of numbers in input argument. 9, 16 or 25
+     * numbers set up a 3x3, 4x4 or 5x5 board.
      * @param stateArg specifies the state we want puzzle to be
      */
     public void setState(String stateArg) {
@@ -207,158 +503,98 @@ public class EightPuzzle {
         uniqNums.add(Integer.parseInt(states[0]));
         for (int i = 1; i < states.length; i++) {
             if (uniqNums.contains(Integer.parseInt(states[i]))) {
-                System.out.println("Error: invalid puzzle state: setState " + stateArg);
+                this.out.println("Error: invalid puzzle state: setState " + stateArg);
                 return;
             }
             uniqNums.add(Integer.parseInt(states[i]));
         }
 
-        if (uniqNums.size() != 9) {
-            System.out.println("Error: invalid puzzle state: setState " + stateArg);
+        Board newBoard = Board.forCells(uniqNums.size());
+        if (newBoard == null) {
+            this.out.println("Error: invalid puzzle state: setState " + stateArg);
             return;
         }
 
         // filling up grid
+        int[] newTiles = new int[newBoard.cells];
         for (int k = 0; k < states.length; k++) {
             int curr = Integer.parseInt(states[k]);
-            if (curr < 0 || curr > 8) {
-                System.out.println("Error: invalid puzzle state: setState " + stateArg);
-                board = new int[3][3];
+            if (curr < 0 || curr >= newBoard.cells) {
+                this.out.println("Error: invalid puzzle state: setState " + stateArg);
+                this.board = newBoard;
+                this.tiles = new int[newBoard.cells];
                 return;
             }
-            int i = k / 3;
-            int j = k % 3;
-            this.board[i][j] = Integer.parseInt(states[k]);
+            newTiles[k] = curr;
         }
+        this.board = newBoard;
+        this.tiles = newTiles;
     }
 
     /**
-     * printState() prints the current puzzle state to the terminal as a 3x3 matrix using a space as the blank tile
+     * printState() prints the current puzzle state to the terminal as a grid using spaces as the blank tile
      */
     public void printState() {
-        for (int i = 0; i < board.length; i++) {
-            System.out.print("|");
-            for (int j = 0; j < board[i].length; j++) {
+        // the board is written out in one piece rather than a print per cell
+        int cellWidth = board.cells > 10 ? 2 : 1;
+        StringBuilder text = new StringBuilder(board.width * (board.width * (cellWidth + 1) + 2));
+        for (int i = 0; i < board.width; i++) {
+            text.append('|');
+            for (int j = 0; j < board.width; j++) {
                 if (j > 0) {
-                    System.out.print(" ");
+                    text.append(' ');
                 }
                 // Print space for 0 (empty tile)
-                if (board[i][j] == 0) {
-                    System.out.print(" ");
+                int tile = tiles[board.width * i + j];
+                if (cellWidth == 2 && tile < 10) text.append(' ');
+                if (tile == 0) {
+                    text.append(' ');
                 } else {
-                    System.out.print(board[i][j]);
+                    text.append(tile);
                 }
             }
-            System.out.println("|");
+            text.append('|').append(System.lineSeparator());
         }
+        this.out.print(text);
     }
 
     /**
      * move() moves the blank tile in the specified direction
      * @param direction is the specified input direction
-     * @param boardState is the board's current state
+     * @param boardState is the board's current state (the tile on each cell)
      * @return the resulting state of the board after making the move
      */
-    public int[][] move(String direction, int[][] boardState) {
+    public int[] move(String direction, int[] boardState) {
         // Find blank tile position
-        int[] blankTilePos = findBlankTile(boardState);
-        if (blankTilePos == null) {
-            System.out.println("Error: no blank tile found");
+        int blank = findBlankTile(boardState);
+        if (blank < 0) {
+            this.out.println("Error: no blank tile found");
             return boardState;
         }
 
         // Checking if move is invalid
-        if (!isValidMove(direction, blankTilePos[0], blankTilePos[1])) {
-            System.out.println("Error: invalid move: move " + direction);
+        Move dir = Move.parse(direction);
+        int target = dir == null ? -1 : board.target(blank, dir.code());
+        if (target < 0) {
+            this.out.println("Error: invalid move: move " + direction);
             return boardState;
         }
 
-        this.moveTile(direction, blankTilePos[0], blankTilePos[1], boardState);
+        boardState[blank] = boardState[target];
+        boardState[target] = 0;
         return boardState;
     }
 
     /**
-     * moveTile() is a helper method for move(). Given the specified direction, the position of the blank tile, and
-     * a copy of the board's state, it moves the blank tile in the specified direction. This method is only called if
-     * the specified move is valid.
-     * @param direction is up, down, left, or right; specified as argument in parent function (move)
-     * @param xPos is the ith position of the blank tile (row)
-     * @param yPos is the jth position of the blank tile (column)
-     * @param boardState is the current state of the board before the tile is moved
-     */
-    private void moveTile(String direction, int xPos, int yPos, int[][] boardState) {
-        int temp = boardState[xPos][yPos];
-        switch (direction) {
-            case "up":
-                boardState[xPos][yPos] = boardState[xPos - 1][yPos];
-                boardState[xPos - 1][yPos] = temp;
-                break;
-            case "down":
-                boardState[xPos][yPos] = boardState[xPos + 1][yPos];
-                boardState[xPos + 1][yPos] = temp;
-                break;
-            case "left":
-                boardState[xPos][yPos] = boardState[xPos][yPos - 1];
-                boardState[xPos][yPos - 1] = temp;
-                break;
-            case "right":
-                boardState[xPos][yPos] = boardState[xPos][yPos + 1];
-                boardState[xPos][yPos + 1] = temp;
-                break;
-        }
-    }
-
-    /**
-     * findBlankTile() is a helper method for move() that finds the row and column index position of the blank tile
-     * given the state of the board. Returns null if no blank tile is found.
+     * findBlankTile() is a helper method for move() that finds the cell of the blank tile
      * @param currState is a representation of the board's current state
-     * @return int[] where int[0] is row index and int[1] is column index of blank tile
+     * @return the blank tile's cell, or -1 if there is none
      */
-    private int[] findBlankTile(int[][] currState) {
-        for (int i = 0; i < currState.length; i++) {
-            for (int j = 0; j < currState[i].length; j++) {
-                if (currState[i][j] == 0) {
-                    return new int[]{i, j};
-                }
-            }
+    private static int findBlankTile(int[] currState) {
+        for (int cell = 0; cell < currState.length; cell++) {
+            if (currState[cell] == 0) return cell;
         }
-        return null;
-    }
-
-    /**
-     * isValidMove() is a helper method for move() that checks if the specified move is valid given the positions
-     * of the blank tile
-     * @param direction is the specified move
-     * @param i is the blank tile's row position
-     * @param j is the blank tile's column position
-     * @return true if move is valid; false otherwise
-     */
-    private boolean isValidMove(String direction, int i, int j) {
-        switch (direction.toLowerCase()) {
-            case "up":    return i > 0;
-            case "down":  return i < board.length - 1;
-            case "left":  return j > 0;
-            case "right": return j < board[0].length - 1;
-            default:      return false;
-        }
-    }
-
-    /**
-     * getValidMoves() is a helper method for scrambleState() that retrieves a list of valid moves for the blank tile
-     * @param blankPos is the position of the blank tile
-     * @return a list of valid moves for the blank tile's given position
-     */
-    private ArrayList<String> getValidMoves(int[] blankPos) {
-        ArrayList<String> validMoves = new ArrayList<>();
-        int i = blankPos[0];
-        int j = blankPos[1];
-
-        if (j > 0) validMoves.add("left");
-        if (j < board[0].length - 1) validMoves.add("right");
-        if (i > 0) validMoves.add("up");
-        if (i < board.length - 1) validMoves.add("down");
-
-        return validMoves;
+        return -1;
     }
 
     /**
@@ -369,30 +605,28 @@ public class EightPuzzle {
         try {
             int numMoves = Integer.parseInt(n);
             if (numMoves < 0) {
-                System.out.println("Error: invalid argument: number of moves must be positive");
+                this.out.println("Error: invalid argument: number of moves must be positive");
                 return;
             }
             Random random = new Random(currSeed);
 
             // start board from goal state
-            String goalState = new String("0 1 2 3 4 5 6 7 8");
-            this.setState(goalState);
+            this.tiles = board.goalTiles();
+            int blank = 0;
 
             // Make n random moves
             for (int i = 0; i < numMoves; i++) {
-                // for each move, find the blank tile
-                int[] blankPos = findBlankTile(this.board);
-
                 // get valid moves for current blank tile's position
-                ArrayList<String> validMoves = this.getValidMoves(blankPos);
+                int moves = board.legalMoves(blank);
 
-                // choose random move from valid moves
-                if (!validMoves.isEmpty()) {
-                    int randomIndex = random.nextInt(validMoves.size());
-                    String randomMove = validMoves.get(randomIndex);
-
-                    this.board = move(randomMove, this.board);
+                // choose random move from valid moves, in direction code order
+                for (int pick = random.nextInt(Integer.bitCount(moves)); pick > 0; pick--) {
+                    moves &= moves - 1;
                 }
+                int target = board.target(blank, Integer.numberOfTrailingZeros(moves));
+                this.tiles[blank] = this.tiles[target];
+                this.tiles[target] = 0;
+                blank = target;
             }
         } catch (NumberFormatException e) {
             printErrorLine("scrambleState " + n);
@@ -415,320 +649,269 @@ public class EightPuzzle {
      * printErrorLine() prints the text of line that caused the issue
      */
     public void printErrorLine(String line) {
-        System.out.println("Error: invalid command: " + line);
+        this.out.println("Error: invalid command: " + line);
+    }
+
+    /**
+     * solveAsync() solves a board on the common pool without blocking the caller (see SolverEngine.solveAsync())
+     */
+    public static CompletableFuture<SolveResult> solveAsync(int[] tiles, SolveRequest request) {
+        return ENGINE.solveAsync(tiles, request);
     }
 
     /**
-     * solveBFS() solves the 8-puzzle using Breadth-First Search
+     * solveAsync() solves a board on an executor without blocking the caller (see SolverEngine.solveAsync())
+     */
+    public static CompletableFuture<SolveResult> solveAsync(int[] tiles, SolveRequest request, Executor executor) {
+        return ENGINE.solveAsync(tiles, request, executor);
+    }
+
+    /**
+     * solve() runs a solve of the current board on the engine and prints the solver's messages. The node count and
+     * statistics are kept for printSolution() and the 'stats' command.
+     * @param request is the algorithm and options
+     * @return the solution, or an empty list if none was found
+     */
+    private List<String> solve(SolveRequest request) {
+        SolveResult result = ENGINE.run(this.tiles, request, Cancellation.create(request.deadline), this.cache);
+        this.out.print(result.messages);
+        this.numNodes = result.nodes;
+        this.lastStats = result.stats;
+        return new ArrayList<>(result.solution);
+    }
+
+    /**
+     * solveBFS() solves the puzzle using Breadth-First Search
      * @return a list of moves that collectively represent the solution to solve the puzzle
      */
     public List<String> solveBFS() {
-        Queue<String> queue = new ArrayDeque<>();
-        Set<String> seen = new HashSet<>();
-        HashMap<String, ArrayList<String>> parents = new HashMap<>();
-
-        // goal state & copy of board's original state
-        String goalState = Arrays.deepToString(goal);
-        String origState = Arrays.deepToString(this.board);
-
-        // put current state of board into queue
-        queue.add(origState);
-        while (!queue.isEmpty()) {
-            String state = queue.poll();
-
-            if (state.equals(goalState)) break;
-            if (seen.contains(state)) continue;
-            seen.add(state);
-
-            if (seen.size() > this.maxNodes) {
-                System.out.println("Error: maxnodes limit (" + this.maxNodes + ") reached");
-                this.maxNodes = 1000; // set maxNodes back to default
-                return new ArrayList<>();
-            }
+        return solve(SolveRequest.of("BFS"));
+    }
 
-            int[][] stateArr = strToArr(state);
-            int[] blankTile = findBlankTile(stateArr);
-            ArrayList<String> validMoves = getValidMoves(blankTile);
-            for (String move : validMoves) {
-                int[][] stateCopy = copyState(stateArr);
-                int[][] nextState = move(move, stateCopy);
-                queue.add(Arrays.deepToString(nextState));
-
-                if (!parents.containsKey(Arrays.deepToString(nextState))) {
-                    ArrayList<String> value = new ArrayList<>();
-                    value.add(state);
-                    value.add(move);
-                    parents.put(Arrays.deepToString(nextState), value);
-                }
-            }
-        }
+    /**
+     * solveExternalBFS() solves the puzzle using Breadth-First Search with its layers kept in files
+     * @return a list of moves that collectively represent the solution to solve the puzzle
+     */
+    public List<String> solveExternalBFS() {
+        return solve(SolveRequest.of("EBFS"));
+    }
 
-        this.numNodes = seen.size();
-        return traceParents(parents, origState);
+    /**
+     * solveBiBFS() solves the puzzle using bidirectional Breadth-First Search
+     * @return a list of moves that collectively represent the solution to solve the puzzle
+     */
+    public List<String> solveBiBFS() {
+        return solve(SolveRequest.of("BIBFS"));
     }
 
     /**
-     * solveDFS() solves the 8 puzzle using Depth-First Search
+     * solveDFS() solves the puzzle using Depth-First Search
      * @return a list of moves that represent the solution
      */
     public List<String> solveDFS() {
-        Stack<ArrayList<String>> stack = new Stack<>();           // frontier: [0]state, [1]parent, [2]depth, [3]move
-        HashMap<String, Integer> visited = new HashMap<>();                        // keeping track of visited states
-        HashMap<String, ArrayList<String>> parents = new HashMap<>(); // [0]: parent; value[1]: move made from parent
-
-        String origState = Arrays.deepToString(this.board);
-        String goalState = Arrays.deepToString(this.goal);
-
-        ArrayList<String> initial = new ArrayList<>();
-        initial.add(origState); // the current state
-        initial.add(""); // parent state
-        initial.add("0"); // depth of state
-        initial.add(""); // the move it took to get from parent to this state
-
-        stack.push(initial);
-        while (!stack.isEmpty()) {
-            var curr = stack.pop();
-            String state = curr.get(0);
-            String parent = curr.get(1);
-            String depth = curr.get(2);
-            String prevMove = curr.get(3);
-
-            if (Integer.parseInt(depth) >= this.depthLimit) continue;
-
-            if (visited.containsKey(state) && visited.get(state) <= Integer.parseInt(depth)) continue;
-            visited.put(state, Integer.parseInt(depth));
-
-            if (visited.size() > this.maxNodes) {
-                System.out.println("Error: maxnodes limit (" + this.maxNodes + ") reached");
-                this.maxNodes = 1000; // set maxNodes back to default
-                return new ArrayList<>();
-            }
-
-            // updating parents
-            ArrayList<String> value = new ArrayList<>();
-            value.add(parent);
-            value.add(prevMove);
-            parents.put(state, value);
-
-            if (state.equals(goalState)) break;
-
-            // process its neighbors
-            int[][] stateArr = strToArr(state);
-            int[] blankTile = findBlankTile(stateArr);
-            ArrayList<String> validMoves = getValidMoves(blankTile);
-
-            for (String move : validMoves) {
-                int[][] stateCopy = copyState(stateArr);
-                int[][] nextState = move(move, stateCopy);
-
-                ArrayList<String> child = new ArrayList<>();
-                child.add(Arrays.deepToString(nextState));
-                child.add(state);
-                child.add(String.valueOf(Integer.parseInt(depth) + 1));
-                child.add(move);
-
-                stack.push(child);
-            }
-        }
-
-        this.numNodes = visited.size();
-        if (this.depthLimit != 31) this.depthLimit = 31;
+        return solve(SolveRequest.of("DFS"));
+    }
 
-        return traceParents(parents, origState);
+    /**
+     * solveIDDFS() solves the puzzle using Iterative-Deepening Depth-First Search
+     * @return the (optimal) solution represented as a list of moves
+     */
+    public List<String> solveIDDFS() {
+        return solve(SolveRequest.of("IDDFS"));
     }
 
     /**
-     * solveAStar() solves the 8 puzzle using A* search
+     * solveAStar() solves the puzzle using A* search
      * @param h is the heuristic function
      * @return the solution represented as a list of moves
      */
     public List<String> solveAStar(String h) {
-        // [0]: state; [1]: f(n) = g(n) + h(n) --> is num moves to reach state; [2]: g(n) --> num moves to reach state
-        PriorityQueue<String[]> frontier = new PriorityQueue<>((a, b) -> {
-            int af = Integer.parseInt(a[1]);
-            int bf = Integer.parseInt(b[1]);
-            return af - bf;
-        });
-        HashMap<String, Integer> seen = new HashMap<>(); // [0]: visited puzzle state; [1]: cost of path to that state
-        HashMap<String, ArrayList<String>> parents = new HashMap<>();
-
-        String origState = Arrays.deepToString(this.board);
-        String goalState = Arrays.deepToString(this.goal);
-
-        String[] initial = new String[]{origState, String.valueOf(heuristic(h, copyState(this.board))), "0"};
-        frontier.add(initial);
-        while (!frontier.isEmpty()) {
-            String[] curr = frontier.poll();
-            String state = curr[0];
-            int fValue = Integer.parseInt(curr[1]);
-            int pathCost = Integer.parseInt(curr[2]);
-
-            if (state.equals(goalState)) break;
-            if (seen.containsKey(state) && seen.get(state) <= fValue) continue;
-            seen.put(state, fValue);
-            if (seen.size() > this.maxNodes) {
-                System.out.println("Error: maxnodes limit (" + this.maxNodes + ") reached");
-                this.maxNodes = 1000; // set maxNodes back to default
-                return new ArrayList<>();
-            }
-
-            // process next states
-            int[][] stateArr = strToArr(state);
-            int[] blankTile = findBlankTile(stateArr);
-            ArrayList<String> validMoves = getValidMoves(blankTile);
-            for (String move : validMoves) {
-                int[][] stateCopy = copyState(stateArr);
-                int[][] nextState = move(move, stateCopy);
-
-                // update parents
-                if (!parents.containsKey(Arrays.deepToString(nextState))) {
-                    ArrayList<String> childInfo = new ArrayList<>();
-                    childInfo.add(state);
-                    childInfo.add(move);
-                    parents.put(Arrays.deepToString(nextState), childInfo);
-                }
-
-                // add next state to frontier
-                int nextFVal = heuristic(h, nextState) + pathCost + 1;
-                String[] next = new String[]{Arrays.deepToString(nextState), String.valueOf(nextFVal),
-                        String.valueOf(pathCost + 1)};
-                frontier.add(next);
-            }
-        }
+        return solve(SolveRequest.of("A*", h));
+    }
 
-        this.numNodes = seen.size();
-        return traceParents(parents, origState);
+    /**
+     * solveWeightedAStar() solves the puzzle using weighted A* (WA*)
+     * @param h is the heuristic function
+     * @param w is the weight on h(n), from 1 to 100
+     * @return a solution at most w times as long as an optimal one, as a list of moves
+     */
+    public List<String> solveWeightedAStar(String h, double w) {
+        return solve(SolveRequest.of("WA*", h).withWeight(w));
     }
 
     /**
-     * heuristic() applies and calculates the correct heuristic function value given string indicator
-     * @param whichH indicates which heuristic function to use
-     * @return the value corresponding to specified heuristic
+     * solveARAStar() solves the puzzle using Anytime Repairing A* (ARA*), improving its solution until it is optimal
+     * or the deadline passes
+     * @param h is the heuristic function
+     * @param w is the weight of the first search, from 1 to 100
+     * @param deadline is how long to keep improving, or null for no limit
+     * @return the best solution found, as a list of moves
      */
-    private int heuristic(String whichH, int[][] state) {
-        if (whichH.equals("h1")) return numMisplacedTiles(state);
-        if (whichH.equals("h2")) return totalManHattanDist(state);
+    public List<String> solveARAStar(String h, double w, Duration deadline) {
+        return solve(SolveRequest.of("ARA*", h).withWeight(w).withDeadline(deadline));
+    }
 
-        return 0;
+    /**
+     * solveIDAStar() solves the puzzle using Iterative-Deepening A*
+     * @param h is the heuristic function
+     * @return the (optimal) solution represented as a list of moves
+     */
+    public List<String> solveIDAStar(String h) {
+        return solve(SolveRequest.of("IDA*", h));
     }
 
     /**
-     * Calculates the heuristic function value for h1 which is the number of misplaced tiles
-     * @param state is the given state of the puzzle
-     * @return number of misplaces tiles for provided state
+     * solveSMAStar() solves the puzzle using simplified memory-bounded A* (SMA*)
+     * @param h is the heuristic function
+     * @return the (optimal) solution represented as a list of moves
      */
-    private int numMisplacedTiles(int[][] state) {
-        int counter = 0;
-        for (int i = 0; i < state.length; i++) {
-            for (int j = 0; j < state[i].length; j++) {
-                if (state[i][j] != (3 * i + j)) counter++;
-            }
-        }
-        return counter;
+    public List<String> solveSMAStar(String h) {
+        return solve(SolveRequest.of("SMA*", h));
     }
 
     /**
-     * Calculates the heuristic function value for h2 which is the sum of distances of the tiles from their
-     * goal positions
-     * @param state is the given state of the puzzle
-     * @return the sum of manhattan distances for each tile to their goal position
+     * solveParallelAStar() solves the puzzle using hash-distributed parallel A* (HDA*)
+     * @param h is the heuristic function
+     * @return the (optimal) solution represented as a list of moves
      */
-    private int totalManHattanDist(int[][] state) {
-        int totalSum = 0;
-        for (int i = 0; i < state.length; i++) {
-            for (int j = 0; j < state[i].length; j++) {
-                int val = state[i][j];
-                int manDist = Math.abs(val / 3 - i) + Math.abs(val % 3 - j);
-                totalSum += manDist;
-            }
-        }
-        return totalSum;
+    public List<String> solveParallelAStar(String h) {
+        return solve(SolveRequest.of("PA*", h));
     }
 
     /**
-     * traceParents() is a helper method that traces through parent states and returns list of moves that collectively
-     * represent the solution.
-     * @param parents is a hashmap of the parent states for each state
-     * @return the solution represented as a list of moves
+     * solveOracle() solves the 8 puzzle by looking up exact distances to the goal state in a precomputed table
+     * @return the (optimal) solution represented as a list of moves
      */
-    private List<String> traceParents(HashMap<String, ArrayList<String>> parents, String origState) {
-        List<String> solution = new ArrayList<>();
-        String state = Arrays.deepToString(goal);
+    public List<String> solveOracle() {
+        return solve(SolveRequest.of("ORACLE"));
+    }
 
-        while (!state.equals(origState)) {
-            ArrayList<String> value = parents.get(state);
-            solution.add(0, value.get(1));
-            state = value.get(0);
+    /**
+     * bfsAll() is a helper method for the 'bfs-all' command that prints how many states lie at each distance from
+     * the current 3x3 board, found by a parallel breadth-first search of every state it can reach (see ParallelBfs)
+     * @param option is threads=N, or null to use all cores
+     * @return false if the option is not valid
+     */
+    private boolean bfsAll(String option) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (option != null) {
+            if (!option.startsWith("threads=")) return false;
+            try {
+                threads = Integer.parseInt(option.substring("threads=".length()));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            if (threads < 1 || threads > 0x7fff) return false; // the most a ForkJoinPool takes
+        }
+        if (board.width != 3) {
+            this.out.println("Error: bfs-all is only available for 3x3 boards");
+            return true;
+        }
+        int seen = 0;
+        for (int tile : this.tiles) {
+            seen |= 1 << tile;
+        }
+        if (seen != (1 << board.cells) - 1) {
+            this.out.println("Error: invalid puzzle state");
+            return true;
         }
 
-        return solution;
+        long startTime = System.nanoTime();
+        long[] layers = ParallelBfs.layers(board.pack(this.tiles), threads);
+        long wallNanos = System.nanoTime() - startTime;
+
+        String newline = System.lineSeparator();
+        StringBuilder text = new StringBuilder(16 * layers.length + 128);
+        long total = 0;
+        for (int depth = 0; depth < layers.length; depth++) {
+            text.append("Depth ").append(depth).append(": ").append(layers[depth]).append(newline);
+            total += layers[depth];
+        }
+        text.append("Reachable states: ").append(total).append(" (max depth ").append(layers.length - 1).append(')')
+                .append(newline);
+        text.append("Wall time: ").append(String.format("%.3f", wallNanos / 1e6)).append(" ms on ").append(threads)
+                .append(threads == 1 ? " thread" : " threads").append(newline);
+        this.out.print(text);
+        return true;
     }
 
     /**
-     * copyState() creates a copy of the inputted state
-     * @param state is the board state
-     * @return a copy of it
+     * configureCache() is a helper method for the 'cache' command
+     * @param option is on, off, clear or budget=KB
+     * @return false if the option is not valid
      */
-    private int[][] copyState(int[][] state) {
-        int[][] copy = new int[3][3];
-        for (int i = 0; i < state.length; i++) {
-            for (int j = 0; j < state[i].length; j++) {
-                copy[i][j] = state[i][j];
+    private boolean configureCache(String option) {
+        if (option.equals("on")) {
+            if (this.cache == null) this.cache = new SolutionCache(SolutionCache.DEFAULT_BUDGET);
+        } else if (option.equals("off")) {
+            this.cache = null;
+        } else if (option.equals("clear")) {
+            if (this.cache != null) this.cache.clear();
+        } else if (option.startsWith("budget=")) {
+            long kilobytes;
+            try {
+                kilobytes = Long.parseLong(option.substring("budget=".length()));
+            } catch (NumberFormatException e) {
+                return false;
             }
+            if (kilobytes <= 0) return false;
+            if (this.cache == null) this.cache = new SolutionCache(kilobytes << 10);
+            else this.cache.setBudget(kilobytes << 10);
+        } else {
+            return false;
         }
-
-        return copy;
+        return true;
     }
 
     /**
-     * strToArr() converts a string representation of board's state to an int[][]
-     * @param state is the string representation of the board
-     * @return the int[][] of the board state
+     * lastStats() returns the statistics of the most recent solve
+     * @return the statistics, or null if nothing was solved yet
      */
-    private int[][] strToArr(String state) {
-        // Remove outer brackets and split into rows
-        state = state.substring(1, state.length() - 1); // Remove outer brackets
-        String[] rows = state.split("],\\s*\\["); // Split rows, handling spaces
-
-        // Parse rows into a 2D array
-        int[][] arr = new int[rows.length][];
-        for (int i = 0; i < rows.length; i++) {
-            // Remove any remaining brackets and split by commas
-            String row = rows[i].replaceAll("[\\[\\]]", "");
-            String[] elements = row.split(",\\s*");
+    public SearchStats lastStats() {
+        return this.lastStats;
+    }
 
-            // Convert string elements to integers
-            arr[i] = new int[elements.length];
-            for (int j = 0; j < elements.length; j++) {
-                arr[i][j] = Integer.parseInt(elements[j]);
-            }
-        }
+    /**
+     * stateKey() describes the current board, for SolveServer to tell identical solves apart
+     * @return the key, or null if the board has a solution cache: what its solves print depends on the cache, and the
+     * cache only learns from solves the board runs itself
+     */
+    String stateKey() {
+        return this.cache == null ? Arrays.toString(this.tiles) : null;
+    }
 
-        return arr;
+    /**
+     * adoptStats() takes the statistics of an identical solve that another board ran, as if this board had run it
+     */
+    void adoptStats(SearchStats stats) {
+        this.lastStats = stats;
     }
 
+
     /**
      * printSolution() prints the list of moves that collectively make up a solution to the console
      * @param solution is an array that contains information about the solution to solve the puzzle
      */
     public void printSolution(List<String> solution) {
-        System.out.println("Nodes created during search: " + this.numNodes);
-        resetNumMaxNodes();
+        String newline = System.lineSeparator();
+        StringBuilder text = new StringBuilder(64 + 12 * solution.size());
+        text.append("Nodes created during search: ").append(this.numNodes).append(newline);
 
-        System.out.println("Solution length: " + solution.size());
-        System.out.println("Move sequence:");
+        text.append("Solution length: ").append(solution.size()).append(newline);
+        text.append("Move sequence:").append(newline);
         for (String step : solution) {
-            System.out.println("move " + step);
+            text.append("move ").append(step).append(newline);
         }
+        this.out.print(text);
     }
 
     /**
-     * restNumNodes() is a helper method for printSolution that resets numNodes to default of 0 and maxNodes to its
-     * default of 1000
+     * bufferedConsole() returns a stream to standard output for command files, which nobody reads line by line as it
+     * is written. Unlike System.out it does not flush at every line, so output leaves in large blocks; it has to be
+     * flushed at the end.
      */
-    private void resetNumMaxNodes() {
-        this.numNodes = 0;
-        this.maxNodes = 1000;
+    private static PrintStream bufferedConsole() {
+        return new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
     }
 
     /**
@@ -738,10 +921,44 @@ public class EightPuzzle {
     public static void main(String[] args) {
         EightPuzzle myBoard = new EightPuzzle();
 
+        // If serving commands to other processes over localhost
+        if (args.length == 2 && args[0].equals("--serve")) {
+            int port;
+            try {
+                port = Integer.parseInt(args[1]);
+                if (port < 0 || port > 65535) throw new NumberFormatException();
+            } catch (NumberFormatException e) {
+                System.out.println("Error: invalid port: " + args[1]);
+                return;
+            }
+            try {
+                new SolveServer(port).serve();
+            } catch (IOException e) {
+                System.out.println("Error: cannot serve on port " + port + ": " + e.getMessage());
+            }
+            return;
+        }
+
+        // If reading from text file in parallel batches (batchfile)
+        if (args.length == 2 && args[0].contains(".txt") && args[1].equals("--batch")) {
+            myBoard.out = bufferedConsole();
+            try {
+                myBoard.batchfile("../" + args[0]);
+            } finally {
+                myBoard.out.flush(); // keep the output before a failing command
+            }
+            return;
+        }
+
         // If reading from text file (cmdfile)
         if (args.length == 1 && args[0].contains(".txt")) {
             String fullFileName = "../" + args[0];
-            myBoard.cmdfile(fullFileName);
+            myBoard.out = bufferedConsole();
+            try {
+                myBoard.cmdfile(fullFileName);
+            } finally {
+                myBoard.out.flush(); // keep the output before a failing command
+            }
             return;
         }
 
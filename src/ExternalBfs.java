@@ -0,0 +1,448 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Disk-backed breadth-first search with delayed duplicate detection, for boards of up to 16 cells
+ *
+ * Each layer of the search is a file of the packed states at that depth (see Board.pack()), sorted and without
+ * repeats. The next layer is made in two streaming passes. First the current layer is read in order and the
+ * children of its states are collected in a buffer, which is sorted and written out as a run whenever it fills.
+ * Then the runs are merged, and children already in the current or the previous layer are dropped on the way. Every
+ * move can be undone, so no other layer can hold them. Memory stays at the buffer plus a read buffer per open file,
+ * however many states there are, and all file access except tracing the solution is sequential.
+ *
+ * A layer file only gets its final name once it is complete. A search that is cancelled, runs out of time or is
+ * killed can be run again on the same board and picks up after its last complete layer. The files are deleted once
+ * the search ends. The solution is traced back from the goal by looking up, in each earlier layer, a neighbor of the
+ * state after it.
+ */
+public final class ExternalBfs {
+    // where the layer files go: a directory per board under this one, in the working directory
+    public static final Path ROOT = Paths.get("eightpuzzle-bfs");
+
+    // the largest buffer of children, in states (512 MB)
+    public static final int MAX_BUFFER = 1 << 26;
+
+    // bytes in each file's read or write buffer, and the most runs merged in one pass
+    private static final int IO_BUFFER = 1 << 16;
+    private static final int MERGE_WAYS = 64;
+
+    private final Board board;
+    private final long start;
+    final Path dir; // this board's layer files, kept when the search stops early
+    private final long[] buffer;
+    private final Cancellation cancellation;
+    private final long maxExpanded;
+    private int numRuns = 0;
+
+    // counters for SearchStats; all but stored only cover the layers this search made
+    long expanded = 0;
+    long generated = 0;
+    long duplicates = 0;
+    long stored = 0;       // states in the layer files
+    long largestLayer = 0;
+    int resumedDepth = -1; // last complete layer found on disk, or -1 if the search started from scratch
+    boolean limited = false; // stopped by the maxExpanded limit
+
+    // moves of the blank from the start to the goal, once found
+    byte[] path = null;
+
+    /**
+     * ExternalBfs() sets up a search
+     * @param board is the board geometry, of up to 16 cells
+     * @param start is the packed start state
+     * @param bufferStates is the number of children held in memory before they are sorted and written out
+     * @param maxExpanded is the most states this search expands before it stops, as a cancelled one does
+     * @param cancellation stops the search early
+     */
+    public ExternalBfs(Board board, long start, int bufferStates, long maxExpanded, Cancellation cancellation) {
+        this.board = board;
+        this.start = start;
+        this.dir = ROOT.resolve(board.width + "x" + board.width + "-" + Long.toHexString(start));
+        this.buffer = new long[Math.min(Math.max(bufferStates, 4), MAX_BUFFER)];
+        this.maxExpanded = maxExpanded;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * run() searches layer by layer until one holds the goal state, then traces the solution into path
+     * @return true if the goal was found, false if the solve was stopped (see limited and Cancellation.reason()) or
+     *         no states were left
+     * @throws IOException if a layer cannot be read or written, or another search is using the same files
+     */
+    public boolean run() throws IOException {
+        long goal = board.pack(board.goalTiles());
+        Files.createDirectories(dir);
+        try (FileChannel lockChannel = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+             FileLock lock = tryLock(lockChannel)) {
+            if (lock == null) throw new IOException("another search is using " + dir);
+
+            // runs and layers that were being written when an earlier search stopped
+            try (DirectoryStream<Path> partial = Files.newDirectoryStream(dir, "*.tmp")) {
+                for (Path file : partial) {
+                    Files.delete(file);
+                }
+            }
+
+            int depth = 0;
+            while (Files.exists(layer(depth + 1))) {
+                depth++;
+            }
+            if (Files.exists(layer(0))) {
+                resumedDepth = depth;
+            } else {
+                Path first = dir.resolve("layer-0.tmp");
+                try (LongWriter writer = new LongWriter(first, true, 8)) {
+                    writer.write(start);
+                }
+                Files.move(first, layer(0), StandardCopyOption.ATOMIC_MOVE);
+            }
+            for (int k = 0; k <= depth; k++) {
+                stored += Files.size(layer(k)) / 8;
+            }
+
+            boolean found = contains(layer(depth), goal);
+            boolean empty = Files.size(layer(depth)) == 0;
+            while (!found && !empty) {
+                long size = expand(depth);
+                if (size < 0) return false; // stopped, with the complete layers kept for the next search
+                depth++;
+                found = contains(layer(depth), goal);
+                empty = size == 0;
+            }
+            if (found) path = trace(depth, goal);
+        }
+
+        // the search is over either way, so nothing is left to resume
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+        try {
+            Files.delete(ROOT);
+        } catch (DirectoryNotEmptyException e) {
+            // other boards' searches still have files there
+        }
+        return path != null;
+    }
+
+    /**
+     * expand() is a helper method for run() that makes the layer after a complete one
+     * @param depth is the depth of the complete layer
+     * @return the number of states in the new layer, or -1 if the solve was stopped
+     */
+    private long expand(int depth) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        long children = 0;
+        int size = 0;
+        try (LongReader layer = new LongReader(layer(depth))) {
+            while (layer.next()) {
+                if (cancellation.shouldStop()) return -1;
+                if (++expanded > maxExpanded) {
+                    limited = true;
+                    return -1;
+                }
+                long state = layer.head;
+                int blank = board.blankOf(state);
+                for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                    if (size == buffer.length) {
+                        runs.add(writeRun(size));
+                        size = 0;
+                    }
+                    int target = board.target(blank, Integer.numberOfTrailingZeros(moves));
+                    buffer[size++] = Board.slide(state, blank, target);
+                    children++;
+                }
+            }
+        }
+        if (size > 0) runs.add(writeRun(size));
+        generated += children;
+
+        // merge in passes of MERGE_WAYS runs, so only that many files are ever open at once
+        while (runs.size() > MERGE_WAYS) {
+            if (cancellation.shouldStop()) return -1;
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MERGE_WAYS) {
+                List<Path> group = runs.subList(i, Math.min(i + MERGE_WAYS, runs.size()));
+                Path run = dir.resolve("run-" + numRuns++ + ".tmp");
+                merge(group, new ArrayList<>(), run, false);
+                for (Path file : group) {
+                    Files.delete(file);
+                }
+                merged.add(run);
+            }
+            runs = merged;
+        }
+
+        List<Path> previous = new ArrayList<>();
+        previous.add(layer(depth));
+        if (depth > 0) previous.add(layer(depth - 1));
+        Path next = dir.resolve("layer-" + (depth + 1) + ".tmp");
+        long count = merge(runs, previous, next, true);
+        for (Path file : runs) {
+            Files.delete(file);
+        }
+        Files.move(next, layer(depth + 1), StandardCopyOption.ATOMIC_MOVE);
+
+        duplicates += children - count;
+        stored += count;
+        if (count > largestLayer) largestLayer = count;
+        return count;
+    }
+
+    /**
+     * writeRun() is a helper method for expand() that sorts the buffered children and writes them out without repeats
+     * @param size is the number of children in the buffer
+     * @return the run file
+     */
+    private Path writeRun(int size) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        Path run = dir.resolve("run-" + numRuns++ + ".tmp");
+        try (LongWriter writer = new LongWriter(run, false, 8 * size)) {
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1]) writer.write(buffer[i]);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * merge() is a helper method for expand() that merges sorted files into one, keeping each state once and leaving
+     * out the states of other sorted files
+     * @param inputs are the files to merge
+     * @param excluded are the files whose states are left out
+     * @param output is the merged file
+     * @param durable is true if the file has to reach the disk before it is renamed into place
+     * @return the number of states written
+     */
+    private long merge(List<Path> inputs, List<Path> excluded, Path output, boolean durable) throws IOException {
+        List<LongReader> readers = new ArrayList<>();
+        List<LongReader> skips = new ArrayList<>();
+        long count = 0;
+        try (LongWriter writer = new LongWriter(output, durable, IO_BUFFER)) {
+            PriorityQueue<LongReader> heads = new PriorityQueue<>(Math.max(inputs.size(), 1),
+                    Comparator.comparingLong((LongReader reader) -> reader.head));
+            for (Path file : inputs) {
+                LongReader reader = new LongReader(file);
+                readers.add(reader);
+                if (reader.next()) heads.add(reader);
+            }
+            for (Path file : excluded) {
+                LongReader skip = new LongReader(file);
+                skips.add(skip);
+                skip.more = skip.next();
+            }
+
+            boolean any = false;
+            long last = 0;
+            while (!heads.isEmpty()) {
+                LongReader reader = heads.poll();
+                long state = reader.head;
+                if (reader.next()) heads.add(reader);
+                if (any && state == last) continue;
+                any = true;
+                last = state;
+                if (!isIn(skips, state)) {
+                    writer.write(state);
+                    count++;
+                }
+            }
+        } finally {
+            for (LongReader reader : readers) {
+                reader.close();
+            }
+            for (LongReader skip : skips) {
+                skip.close();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * isIn() is a helper method for merge() that advances sorted files up to a state and checks if any holds it.
+     * The merge asks for states in increasing order, so each file is read once.
+     */
+    private static boolean isIn(List<LongReader> files, long state) throws IOException {
+        boolean found = false;
+        for (LongReader file : files) {
+            while (file.more && file.head < state) {
+                file.more = file.next();
+            }
+            if (file.more && file.head == state) found = true;
+        }
+        return found;
+    }
+
+    /**
+     * trace() is a helper method for run() that walks back from the goal through the layers: the state before each
+     * one on the path is any of its neighbors in the layer above
+     * @param depth is the goal's layer
+     * @param goal is the packed goal state
+     * @return the moves from the start to the goal
+     */
+    private byte[] trace(int depth, long goal) throws IOException {
+        byte[] moves = new byte[depth];
+        long state = goal;
+        for (int k = depth - 1; k >= 0; k--) {
+            int blank = board.blankOf(state);
+            int found = -1;
+            for (int options = board.legalMoves(blank); options != 0 && found < 0; options &= options - 1) {
+                int dir = Integer.numberOfTrailingZeros(options);
+                long parent = Board.slide(state, blank, board.target(blank, dir));
+                if (contains(layer(k), parent)) {
+                    found = dir;
+                    state = parent;
+                }
+            }
+            if (found < 0) throw new IOException("layer " + k + " has no state before layer " + (k + 1));
+            moves[k] = (byte) (found ^ 1); // the move from the parent undoes the one that reached it
+        }
+        return moves;
+    }
+
+    /**
+     * contains() binary searches a sorted layer file for a state
+     */
+    private static boolean contains(Path file, long state) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(8);
+            long low = 0;
+            long high = channel.size() / 8 - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                bytes.clear();
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes, 8 * mid + bytes.position()) < 0) throw new EOFException(file.toString());
+                }
+                long value = bytes.getLong(0);
+                if (value == state) return true;
+                if (value < state) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return false;
+        }
+    }
+
+    private Path layer(int depth) {
+        return dir.resolve("layer-" + depth + ".bin");
+    }
+
+    /**
+     * tryLock() locks the directory's lock file for this search
+     * @return the lock, or null if another search, in this process or another, holds it
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    /**
+     * bufferSize() sizes a file buffer for at most a number of bytes: a power of two from 8 to IO_BUFFER, so that
+     * small runs get small buffers and the JDK's cache of temporary direct buffers keeps fitting them
+     */
+    private static int bufferSize(long bytes) {
+        return (int) Math.min(IO_BUFFER, Long.highestOneBit(Math.max(bytes, 8) - 1) << 1);
+    }
+
+    // sequential reader of a file of longs, with a buffer no larger than the file needs
+    private static final class LongReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        long head;    // the value read last
+        boolean more; // for merge(): whether head is valid
+
+        LongReader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.bytes = ByteBuffer.allocate(bufferSize(channel.size()));
+            bytes.flip();
+        }
+
+        /**
+         * next() reads the next value into head
+         * @return false at the end of the file
+         */
+        boolean next() throws IOException {
+            if (bytes.remaining() < 8) {
+                bytes.compact();
+                int read;
+                do {
+                    read = channel.read(bytes);
+                } while (read > 0 && bytes.hasRemaining());
+                bytes.flip();
+                if (bytes.remaining() < 8) return false;
+            }
+            head = bytes.getLong();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // buffered writer of a file of longs
+    private static final class LongWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        private final boolean durable; // forced to the disk when closed
+
+        LongWriter(Path file, boolean durable, int bufferBytes) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            this.bytes = ByteBuffer.allocate(bufferSize(bufferBytes));
+            this.durable = durable;
+        }
+
+        void write(long value) throws IOException {
+            if (!bytes.hasRemaining()) flush();
+            bytes.putLong(value);
+        }
+
+        private void flush() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                if (durable) channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Open list for best-first search. Entries are a state key (see StateSpace) and its path cost, ordered by an integer
+ * priority, lowest first.
+ */
+public interface Frontier {
+    /**
+     * add() inserts an entry with the given priority
+     * @param state is the state key
+     * @param cost is the path cost g(n) the state was reached with
+     * @param priority is its priority, f(n) for A*; must not be negative
+     */
+    void add(long state, int cost, int priority);
+
+    /**
+     * poll() removes an entry with the lowest priority and returns its state; the frontier must not be empty
+     */
+    long poll();
+
+    /**
+     * polledCost() returns the path cost of the entry last returned by poll()
+     */
+    int polledCost();
+
+    /**
+     * polledPriority() returns the priority of the entry last returned by poll()
+     */
+    int polledPriority();
+
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * create() returns a new frontier of the named kind: "bucket" (default) or "heap"
+     * @param kind is the frontier name
+     * @return the frontier, or null if the name is unknown
+     */
+    static Frontier create(String kind) {
+        switch (kind) {
+            case "bucket": return new BucketFrontier();
+            case "heap":   return new HeapFrontier();
+            default:       return null;
+        }
+    }
+}
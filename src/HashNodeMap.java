@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * NodeMap for boards without a perfect hash: open addressing over a primitive array of keys, with the cost, move
+ * and flag of each state in parallel byte arrays
+ */
+public final class HashNodeMap implements NodeMap {
+    // keys are packed boards or interned indices, neither of which can be all ones
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private byte[] costs; // 1 + cost
+    private byte[] info;  // bits 0-1: move, bit 2: flag
+    private int size = 0;
+
+    public HashNodeMap() {
+        this(1 << 12);
+    }
+
+    public HashNodeMap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.keys = new long[slots];
+        Arrays.fill(keys, EMPTY);
+        this.costs = new byte[slots];
+        this.info = new byte[slots];
+    }
+
+    @Override
+    public int cost(long key) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? UNSEEN : (costs[slot] & 0xFF) - 1;
+    }
+
+    @Override
+    public int move(long key) {
+        return info[find(key)] & 0x3;
+    }
+
+    @Override
+    public void record(long key, int cost, int move) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+                slot = find(key);
+            }
+        }
+        costs[slot] = (byte) (cost + 1);
+        info[slot] = (byte) ((info[slot] & ~0x3) | move);
+    }
+
+    @Override
+    public boolean mark(long key) {
+        int slot = find(key);
+        if ((info[slot] & 0x4) != 0) return false;
+        info[slot] |= 0x4;
+        return true;
+    }
+
+    @Override
+    public void clearMarks() {
+        for (int i = 0; i < info.length; i++) {
+            info[i] &= ~0x4;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * find() returns the slot holding key, or the empty slot where it would go
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * mix() spreads the bits of a key (the MurmurHash3 finalizer)
+     */
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        byte[] oldCosts = costs;
+        byte[] oldInfo = info;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        costs = new byte[keys.length];
+        info = new byte[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            costs[slot] = oldCosts[i];
+            info[slot] = oldInfo[i];
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.PriorityQueue;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Binary-heap frontier ordered only by priority, as solveAStar() originally used. Kept for comparison with
+ * BucketFrontier.
+ */
+public final class HeapFrontier implements Frontier {
+    // [0]: state; [1]: cost; [2]: priority
+    private final PriorityQueue<long[]> heap = new PriorityQueue<>((a, b) -> Long.compare(a[2], b[2]));
+    private int polledCost = 0;
+    private int polledPriority = 0;
+
+    @Override
+    public void add(long state, int cost, int priority) {
+        heap.add(new long[]{state, cost, priority});
+    }
+
+    @Override
+    public long poll() {
+        long[] entry = heap.poll();
+        polledCost = (int) entry[1];
+        polledPriority = (int) entry[2];
+        return entry[0];
+    }
+
+    @Override
+    public int polledCost() {
+        return polledCost;
+    }
+
+    @Override
+    public int polledPriority() {
+        return polledPriority;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * State space for boards that do not fit in a long (5x5). Each distinct board is stored once, a byte per cell, and
+ * its key is its index in that pool; an open-addressing table of indices finds boards that were already stored.
+ */
+public final class InternedSpace implements StateSpace {
+    private final Board board;
+    private final int cells;
+
+    private byte[] pool;          // the boards, cells bytes each
+    private byte[] blanks;        // the blank's cell of each board
+    private int count = 0;
+    private int[] slots;          // 1 + index of a board, or 0 for an empty slot
+    private final byte[] scratch; // board being looked up
+
+    public InternedSpace(Board board) {
+        this.board = board;
+        this.cells = board.cells;
+        this.pool = new byte[1024 * cells];
+        this.blanks = new byte[1024];
+        this.slots = new int[2048];
+        this.scratch = new byte[cells];
+    }
+
+    @Override
+    public Board board() {
+        return board;
+    }
+
+    @Override
+    public long key(int[] tiles) {
+        int blank = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            scratch[cell] = (byte) tiles[cell];
+            if (tiles[cell] == 0) blank = cell;
+        }
+        return intern(blank);
+    }
+
+    @Override
+    public void tiles(long key, int[] tiles) {
+        int offset = (int) key * cells;
+        for (int cell = 0; cell < cells; cell++) {
+            tiles[cell] = pool[offset + cell];
+        }
+    }
+
+    @Override
+    public int tile(long key, int cell) {
+        return pool[(int) key * cells + cell];
+    }
+
+    @Override
+    public int blank(long key) {
+        return blanks[(int) key];
+    }
+
+    @Override
+    public long child(long key, int blank, int target) {
+        System.arraycopy(pool, (int) key * cells, scratch, 0, cells);
+        scratch[blank] = scratch[target];
+        scratch[target] = 0;
+        return intern(target);
+    }
+
+    @Override
+    public NodeMap newNodeMap() {
+        return new HashNodeMap();
+    }
+
+    /**
+     * intern() returns the index of the board in scratch, storing it first if it is new
+     * @param blank is the blank's cell in scratch
+     */
+    private long intern(int blank) {
+        int mask = slots.length - 1;
+        for (int slot = hash(scratch, 0) & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (index < 0) {
+                index = store(blank);
+                slots[slot] = index + 1;
+                if (count * 2 > slots.length) rehash();
+                return index;
+            }
+            if (Arrays.equals(pool, index * cells, index * cells + cells, scratch, 0, cells)) return index;
+        }
+    }
+
+    private int store(int blank) {
+        if (count == blanks.length) {
+            pool = Arrays.copyOf(pool, pool.length * 2);
+            blanks = Arrays.copyOf(blanks, blanks.length * 2);
+        }
+        System.arraycopy(scratch, 0, pool, count * cells, cells);
+        blanks[count] = (byte) blank;
+        return count++;
+    }
+
+    private int hash(byte[] bytes, int offset) {
+        int h = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            h = 31 * h + bytes[offset + cell];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash() {
+        int[] bigger = new int[slots.length * 2];
+        int mask = bigger.length - 1;
+        for (int index = 0; index < count; index++) {
+            int slot = hash(pool, index * cells) & mask;
+            while (bigger[slot] != 0) slot = (slot + 1) & mask;
+            bigger[slot] = index + 1;
+        }
+        slots = bigger;
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Streams the lines of a command file through a file channel and one large buffer. A line ends at \n, \r\n or \r,
+ * like Scanner.nextLine(), and the text is UTF-8. Only lines that cross the end of the buffer are copied before they
+ * are decoded.
+ */
+public final class LineReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private int position = 0;
+    private int limit = 0;
+    private boolean endOfFile = false;
+    private boolean skipLineFeed = false; // the last line ended at a \r, which may be the start of a \r\n
+
+    // the start of a line that did not fit in the buffer
+    private byte[] partial = new byte[128];
+    private int partialLength = 0;
+
+    private LineReader(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * open() opens a file for reading
+     * @param filename is the file
+     * @return the reader
+     * @throws FileNotFoundException if the file cannot be opened
+     */
+    public static LineReader open(String filename) throws FileNotFoundException {
+        return new LineReader(new FileInputStream(filename).getChannel());
+    }
+
+    /**
+     * readLine() returns the next line without its terminator
+     * @return the line, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    public String readLine() throws IOException {
+        partialLength = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                return partialLength > 0 ? new String(partial, 0, partialLength, StandardCharsets.UTF_8) : null;
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (bytes[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            for (int i = position; i < limit; i++) {
+                byte b = bytes[i];
+                if (b == '\n' || b == '\r') {
+                    String line = partialLength == 0
+                            ? new String(bytes, position, i - position, StandardCharsets.UTF_8)
+                            : joinPartial(i);
+                    position = i + 1;
+                    skipLineFeed = b == '\r';
+                    return line;
+                }
+            }
+            keepPartial(limit);
+            position = limit;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfFile) return false;
+        buffer.clear();
+        int read = channel.read(buffer);
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        if (read < 0) {
+            endOfFile = true;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    // copies bytes[position..end) after the partial line
+    private void keepPartial(int end) {
+        int length = end - position;
+        if (partialLength + length > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(2 * partial.length, partialLength + length));
+        }
+        System.arraycopy(bytes, position, partial, partialLength, length);
+        partialLength += length;
+    }
+
+    private String joinPartial(int end) {
+        keepPartial(end);
+        return new String(partial, 0, partialLength, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Growable ring buffer of primitive longs, used as the solvers' queue (FIFO) and stack (LIFO) without boxing
+ */
+public final class LongDeque {
+    private long[] items;
+    private int head = 0; // index of the first element
+    private int size = 0;
+
+    public LongDeque(int initialCapacity) {
+        this.items = new long[Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * addLast() appends a value to the end (back of the queue / top of the stack)
+     */
+    public void addLast(long value) {
+        if (size == items.length) grow();
+        items[(head + size) & (items.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * addFirst() prepends a value to the front
+     */
+    public void addFirst(long value) {
+        if (size == items.length) grow();
+        head = (head - 1) & (items.length - 1);
+        items[head] = value;
+        size++;
+    }
+
+    /**
+     * pollFirst() removes and returns the first value (FIFO order); the deque must not be empty
+     */
+    public long pollFirst() {
+        long value = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * pollLast() removes and returns the last value (LIFO order); the deque must not be empty
+     */
+    public long pollLast() {
+        size--;
+        return items[(head + size) & (items.length - 1)];
+    }
+
+    /**
+     * grow() doubles the capacity, unrolling the ring so the first element is at index 0
+     */
+    private void grow() {
+        long[] bigger = new long[items.length << 1];
+        int firstPart = items.length - head;
+        System.arraycopy(items, head, bigger, 0, firstPart);
+        System.arraycopy(items, 0, bigger, firstPart, head);
+        items = bigger;
+        head = 0;
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * The four moves of the blank tile. Searches work with the direction code (the ordinal, 0-3), which fits in 2 bits;
+ * the names are only used to parse the move command and print solutions. Opposite moves differ in bit 0.
+ */
+public enum Move {
+    LEFT("left"),
+    RIGHT("right"),
+    UP("up"),
+    DOWN("down");
+
+    // all moves by direction code, without the copy values() makes
+    private static final Move[] BY_CODE = values();
+
+    public final String label;
+
+    Move(String label) {
+        this.label = label;
+    }
+
+    /**
+     * code() returns the direction code of the move
+     */
+    public int code() {
+        return ordinal();
+    }
+
+    /**
+     * of() returns the move with a direction code
+     */
+    public static Move of(int code) {
+        return BY_CODE[code];
+    }
+
+    /**
+     * parse() finds the move with a name
+     * @param label is the move name (left, right, up, or down)
+     * @return the move, or null if the name is not a move
+     */
+    public static Move parse(String label) {
+        for (Move move : BY_CODE) {
+            if (move.label.equals(label)) return move;
+        }
+        return null;
+    }
+}
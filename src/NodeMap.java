@@ -0,0 +1,41 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Per-state bookkeeping of a search, keyed by StateSpace keys: a cost (depth or g(n), at most 254), the move the
+ * state was reached with, and one flag bit (e.g. already expanded).
+ */
+public interface NodeMap {
+    // cost() of a state that was never recorded
+    int UNSEEN = -1;
+
+    /**
+     * cost() returns the recorded cost of a state, or UNSEEN
+     */
+    int cost(long key);
+
+    /**
+     * move() returns the direction code of the move a recorded state was reached with
+     */
+    int move(long key);
+
+    /**
+     * record() sets the cost of a state and the move it was reached with
+     */
+    void record(long key, int cost, int move);
+
+    /**
+     * mark() sets the flag of a recorded state
+     * @return true if the flag was not set before
+     */
+    boolean mark(long key);
+
+    /**
+     * clearMarks() clears the flags of all recorded states, keeping their costs and moves
+     */
+    void clearMarks();
+
+    /**
+     * size() is the number of states recorded
+     */
+    int size();
+}
@@ -0,0 +1,61 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * State space for boards of up to 16 cells, keyed by the packed board itself (see Board.pack()). It holds no state,
+ * so one instance per board is shared by all searches.
+ */
+public final class PackedSpace implements StateSpace {
+    private static final PackedSpace[] SPACES = new PackedSpace[Board.MAX_WIDTH + 1];
+
+    static {
+        for (int width = Board.MIN_WIDTH; width <= Board.MAX_WIDTH; width++) {
+            if (Board.of(width).fitsInLong()) SPACES[width] = new PackedSpace(Board.of(width));
+        }
+    }
+
+    private final Board board;
+
+    private PackedSpace(Board board) {
+        this.board = board;
+    }
+
+    static PackedSpace of(Board board) {
+        return SPACES[board.width];
+    }
+
+    @Override
+    public Board board() {
+        return board;
+    }
+
+    @Override
+    public long key(int[] tiles) {
+        return board.pack(tiles);
+    }
+
+    @Override
+    public void tiles(long key, int[] tiles) {
+        board.unpack(key, tiles);
+    }
+
+    @Override
+    public int tile(long key, int cell) {
+        return Board.tileAt(key, cell);
+    }
+
+    @Override
+    public int blank(long key) {
+        return board.blankOf(key);
+    }
+
+    @Override
+    public long child(long key, int blank, int target) {
+        return Board.slide(key, blank, target);
+    }
+
+    @Override
+    public NodeMap newNodeMap() {
+        // every 3x3 state has a perfect hash, so its bookkeeping can live in dense arrays
+        return board.width == 3 ? new RankNodeMap() : new HashNodeMap();
+    }
+}
@@ -0,0 +1,111 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Level-synchronous parallel breadth-first search over all the 3x3 states reachable from a start, for 'bfs-all'
+ *
+ * The current frontier, the next frontier and the visited set are bitsets over permutation ranks (see
+ * PermutationRank), 181,440 bits or about 22 KB each. Each layer is cut into chunks of the frontier's words, which
+ * the workers claim one at a time. A worker unranks the states of its chunk and sets the ranks of their unvisited
+ * children in the next frontier with an atomic OR, so workers that reach the same child need no lock. The visited set
+ * only changes between layers, when the next frontier is merged into it, so the workers read it without one.
+ */
+public final class ParallelBfs {
+    // atomic access to the words of the next frontier
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // words of the bitsets, and how many of them a worker claims at once
+    private static final int NUM_WORDS = (PermutationRank.NUM_STATES + 63) >>> 6;
+    private static final int CHUNK_WORDS = 64;
+
+    private static final Board BOARD = Board.of(3);
+
+    private ParallelBfs() {
+    }
+
+    /**
+     * layers() counts the states at each distance from a start state, which is their depth in a breadth-first search
+     * @param start is the packed 3x3 start state (see Board.pack())
+     * @param threads is the number of worker threads
+     * @return the number of states at each depth, from the start alone at depth 0 to the deepest layer
+     */
+    public static long[] layers(long start, int threads) {
+        int parity = PermutationRank.parity(start);
+        long[] visited = new long[NUM_WORDS];
+        long[] frontier = new long[NUM_WORDS];
+        long[] next = new long[NUM_WORDS];
+        int root = PermutationRank.rank(start);
+        visited[root >>> 6] |= 1L << root;
+        frontier[root >>> 6] |= 1L << root;
+
+        long[] counts = new long[64];
+        int depth = 0;
+        counts[0] = 1;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (counts[depth] > 0) {
+                long[] layer = frontier;
+                long[] children = next;
+                AtomicInteger nextChunk = new AtomicInteger();
+                List<Callable<Void>> workers = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    workers.add(() -> {
+                        for (int chunk = nextChunk.getAndIncrement(); chunk * CHUNK_WORDS < NUM_WORDS;
+                             chunk = nextChunk.getAndIncrement()) {
+                            expand(layer, children, visited, parity, chunk * CHUNK_WORDS,
+                                    Math.min((chunk + 1) * CHUNK_WORDS, NUM_WORDS));
+                        }
+                        return null;
+                    });
+                }
+                pool.invokeAll(workers);
+
+                // the children become the next layer and are visited from now on
+                long count = 0;
+                for (int w = 0; w < NUM_WORDS; w++) {
+                    visited[w] |= next[w];
+                    count += Long.bitCount(next[w]);
+                }
+                long[] done = frontier;
+                frontier = next;
+                next = done;
+                Arrays.fill(next, 0L);
+
+                if (++depth == counts.length) counts = Arrays.copyOf(counts, 2 * depth);
+                counts[depth] = count;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return Arrays.copyOf(counts, depth);
+    }
+
+    /**
+     * expand() is a helper method for layers() that generates the children of the frontier states in a range of
+     * words and adds the unvisited ones to the next frontier
+     */
+    private static void expand(long[] frontier, long[] next, long[] visited, int parity, int from, int to) {
+        for (int w = from; w < to; w++) {
+            for (long bits = frontier[w]; bits != 0; bits &= bits - 1) {
+                long state = PermutationRank.unrank((w << 6) + Long.numberOfTrailingZeros(bits), parity);
+                int blank = BOARD.blankOf(state);
+                for (int moves = BOARD.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                    int target = BOARD.target(blank, Integer.numberOfTrailingZeros(moves));
+                    int rank = PermutationRank.rank(Board.slide(state, blank, target));
+                    long bit = 1L << rank;
+                    int word = rank >>> 6;
+                    if ((visited[word] & bit) != 0 || ((long) WORDS.getOpaque(next, word) & bit) != 0) continue;
+                    WORDS.getAndBitwiseOr(next, word, bit);
+                }
+            }
+        }
+    }
+}
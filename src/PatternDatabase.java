@@ -0,0 +1,235 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Disjoint additive pattern database for one group of tiles
+ *
+ * The table gives, for every placement of the group's tiles, the fewest moves of those tiles needed to bring them to
+ * their goal cells (tile t belongs in cell t), while other tiles move for free. Because each move moves exactly one
+ * tile, the costs of disjoint groups can be added and the sum is still admissible. Placements are indexed by the
+ * rank of the partial permutation of the group's cells, and the table is built by a 0-1 BFS backwards from the goal
+ * over (placement, blank cell) pairs.
+ */
+public final class PatternDatabase {
+    // table value for placements that were not reached
+    private static final int UNREACHED = 0xFF;
+
+    // cache files start with "EPDB" and the format version; bump the version when the table layout changes
+    private static final int MAGIC = 0x45504442;
+    private static final int VERSION = 1;
+
+    private final int[] tiles;
+    private final int cells;
+    private final byte[] costs;
+
+    private PatternDatabase(int[] tiles, int cells, byte[] costs) {
+        this.tiles = tiles;
+        this.cells = cells;
+        this.costs = costs;
+    }
+
+    /**
+     * load() returns the pattern database for a group of tiles, reading it from the cache file if one is given and
+     * holds a valid table for this width and group, and otherwise building it (and saving it to the cache file, if
+     * any)
+     * @param width is the board width
+     * @param tiles are the tiles in the group
+     * @param cacheFile is where the table is cached, or null to always build it in memory
+     * @return the pattern database
+     */
+    public static PatternDatabase load(int width, int[] tiles, Path cacheFile) {
+        int cells = width * width;
+        int size = numPlacements(cells, tiles.length);
+        byte[] header = header(width, tiles);
+        if (cacheFile != null) {
+            try {
+                if (Files.exists(cacheFile) && Files.size(cacheFile) == header.length + size + 4) {
+                    byte[] costs = read(Files.readAllBytes(cacheFile), header);
+                    if (costs != null) return new PatternDatabase(tiles.clone(), cells, costs);
+                }
+            } catch (IOException e) {
+                // fall through and rebuild
+            }
+        }
+
+        byte[] costs = build(width, tiles);
+        if (cacheFile != null) {
+            try {
+                Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+                Files.write(temp, write(header, costs));
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // caching is only an optimization
+            }
+        }
+        return new PatternDatabase(tiles.clone(), cells, costs);
+    }
+
+    /**
+     * header() describes a table in its cache file: the magic number, the file format version, the board width and
+     * the group's tiles
+     */
+    private static byte[] header(int width, int[] tiles) {
+        ByteBuffer header = ByteBuffer.allocate(7 + tiles.length);
+        header.putInt(MAGIC).put((byte) VERSION).put((byte) width).put((byte) tiles.length);
+        for (int tile : tiles) header.put((byte) tile);
+        return header.array();
+    }
+
+    /**
+     * read() checks a cache file against the expected header and the CRC-32 at its end
+     * @return the table, or null if the file was written for another width, group or version, or is corrupt
+     */
+    private static byte[] read(byte[] file, byte[] header) {
+        int end = file.length - 4;
+        if (!Arrays.equals(file, 0, header.length, header, 0, header.length)) return null;
+        CRC32 crc = new CRC32();
+        crc.update(file, 0, end);
+        if ((int) crc.getValue() != ByteBuffer.wrap(file, end, 4).getInt()) return null;
+        return Arrays.copyOfRange(file, header.length, end);
+    }
+
+    /**
+     * write() lays out a cache file: the header, the table, and a CRC-32 of both
+     */
+    private static byte[] write(byte[] header, byte[] costs) {
+        ByteBuffer file = ByteBuffer.allocate(header.length + costs.length + 4);
+        file.put(header).put(costs);
+        CRC32 crc = new CRC32();
+        crc.update(file.array(), 0, file.position());
+        return file.putInt((int) crc.getValue()).array();
+    }
+
+    /**
+     * defaultPartition() splits the tiles 1 .. width * width - 1 into consecutive groups small enough to build
+     * quickly
+     * @param width is the board width
+     * @return the groups of tiles
+     */
+    public static int[][] defaultPartition(int width) {
+        int numTiles = width * width - 1;
+        int groupSize = width == 4 ? 5 : 4;
+        int numGroups = (numTiles + groupSize - 1) / groupSize;
+        int[][] groups = new int[numGroups][];
+        for (int g = 0; g < numGroups; g++) {
+            int first = 1 + g * groupSize;
+            int size = Math.min(groupSize, numTiles + 1 - first);
+            groups[g] = new int[size];
+            for (int i = 0; i < size; i++) {
+                groups[g][i] = first + i;
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * cost() looks up the group's cost for a board
+     * @param positions gives the cell of every tile (positions[tile] = cell)
+     * @return the fewest moves of the group's tiles needed to place them
+     */
+    public int cost(int[] positions) {
+        int used = 0;
+        int rank = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            int cell = positions[tiles[i]];
+            rank = rank * (cells - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+            used |= 1 << cell;
+        }
+        return costs[rank] & 0xFF;
+    }
+
+    /**
+     * numPlacements() is the number of ways to put k distinct tiles in n cells: n! / (n - k)!
+     */
+    private static int numPlacements(int n, int k) {
+        int count = 1;
+        for (int i = 0; i < k; i++) {
+            count *= n - i;
+        }
+        return count;
+    }
+
+    /**
+     * rank() indexes a placement (the cells of the group's tiles, 5 bits each, in group order) in
+     * [0, numPlacements)
+     */
+    private static int rank(long placement, int k, int cells) {
+        int used = 0;
+        int rank = 0;
+        for (int i = 0; i < k; i++) {
+            int cell = (int) (placement >>> (5 * i)) & 0x1F;
+            rank = rank * (cells - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+            used |= 1 << cell;
+        }
+        return rank;
+    }
+
+    /**
+     * build() runs the backward 0-1 BFS. Queue entries hold the placement (5 bits per tile) and the blank cell
+     * (bits 40-44); moving a group tile costs 1, moving any other tile costs 0.
+     */
+    private static byte[] build(int width, int[] tiles) {
+        Board board = Board.of(width);
+        int cells = board.cells;
+        int k = tiles.length;
+        int size = numPlacements(cells, k);
+        byte[] dist = new byte[size * cells]; // indexed by rank * cells + blank cell
+        Arrays.fill(dist, (byte) UNREACHED);
+
+        long goal = 0L;
+        for (int i = 0; i < k; i++) {
+            goal |= (long) tiles[i] << (5 * i);
+        }
+        LongDeque queue = new LongDeque(1 << 12);
+        queue.addLast(goal); // blank on cell 0
+        dist[rank(goal, k, cells) * cells] = 0;
+
+        while (!queue.isEmpty()) {
+            long entry = queue.pollFirst();
+            long placement = entry & ((1L << 40) - 1);
+            int blank = (int) (entry >>> 40);
+            int cost = dist[rank(placement, k, cells) * cells + blank] & 0xFF;
+
+            for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                int next = board.target(blank, Integer.numberOfTrailingZeros(moves));
+
+                // does a group tile sit on the cell the blank moves to?
+                long nextPlacement = placement;
+                int step = 0;
+                for (int i = 0; i < k; i++) {
+                    if (((placement >>> (5 * i)) & 0x1F) == next) {
+                        nextPlacement = (placement & ~(0x1FL << (5 * i))) | ((long) blank << (5 * i));
+                        step = 1;
+                        break;
+                    }
+                }
+
+                int index = rank(nextPlacement, k, cells) * cells + next;
+                int known = dist[index] & 0xFF;
+                if (known != UNREACHED && known <= cost + step) continue;
+                dist[index] = (byte) (cost + step);
+                long nextEntry = nextPlacement | ((long) next << 40);
+                if (step == 0) queue.addFirst(nextEntry);
+                else queue.addLast(nextEntry);
+            }
+        }
+
+        // the group's cost does not depend on where the blank is
+        byte[] costs = new byte[size];
+        for (int r = 0; r < size; r++) {
+            int best = UNREACHED;
+            for (int blank = 0; blank < cells; blank++) {
+                best = Math.min(best, dist[r * cells + blank] & 0xFF);
+            }
+            costs[r] = (byte) best;
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Perfect hash (Lehmer code ranking) for packed 3x3 states (see Board.pack())
+ *
+ * A state is ranked as blankIndex * 8!/2 + (Lehmer rank of the 8 non-blank tiles, read in board order) / 2.
+ * The Lehmer ranks 2k and 2k + 1 differ only by a swap of the last two tiles, which flips the inversion parity, so
+ * halving the rank maps each solvability class (even or odd inversions) one-to-one onto [0, 9!/2). Every state
+ * reachable from a given start therefore has a distinct rank below NUM_STATES.
+ */
+public final class PermutationRank {
+    // number of states in one solvability class: 9! / 2
+    public static final int NUM_STATES = 181440;
+
+    // number of rankings for each blank position: 8! / 2
+    private static final int PER_BLANK = 20160;
+
+    private static final Board BOARD = Board.of(3);
+
+    private PermutationRank() {
+    }
+
+    /**
+     * rank() computes the perfect hash of a packed state
+     * @param state is the packed state
+     * @return its rank in [0, NUM_STATES)
+     */
+    public static int rank(long state) {
+        int blank = BOARD.blankOf(state);
+        int used = 0;
+        int lehmer = 0;
+        int remaining = 8;
+        for (int pos = 0; pos < 9; pos++) {
+            if (pos == blank) continue;
+            int tile = Board.tileAt(state, pos) - 1;
+            int digit = tile - Integer.bitCount(used & ((1 << tile) - 1));
+            used |= 1 << tile;
+            lehmer = lehmer * remaining + digit;
+            remaining--;
+        }
+        return blank * PER_BLANK + (lehmer >>> 1);
+    }
+
+    /**
+     * unrank() is the inverse of rank() for one solvability class. The number of inversions of the tiles is the sum of
+     * their Lehmer digits, and of the Lehmer ranks 2k and 2k + 1 the odd one has a 1 as its last digit but one (the
+     * last digit is always 0), so the class decides that digit. Nothing is allocated, so parallel searches can unrank
+     * every state they expand.
+     * @param rank is the rank in [0, NUM_STATES)
+     * @param parity is the inversion parity (0 or 1) of the class; the goal state's class has parity 0
+     * @return the packed state with that rank
+     */
+    public static long unrank(int rank, int parity) {
+        int blank = rank / PER_BLANK;
+        int lehmer = (rank % PER_BLANK) << 1;
+
+        // decode the Lehmer digits from least to most significant, 4 bits each with the first digit lowest
+        int digits = 0;
+        int sum = 0;
+        for (int i = 7; i >= 0; i--) {
+            int digit = lehmer % (8 - i);
+            lehmer /= 8 - i;
+            digits |= digit << (4 * i);
+            sum += digit;
+        }
+        if ((sum & 1) != parity) digits |= 1 << (4 * 6);
+
+        long packed = 0L;
+        int used = 0;
+        for (int pos = 0, i = 0; pos < 9; pos++) {
+            if (pos == blank) continue;
+            int tile = 0;
+            for (int skip = (digits >>> (4 * i++)) & 0xF; ; tile++) {
+                if ((used & (1 << tile)) != 0) continue;
+                if (skip-- == 0) break;
+            }
+            used |= 1 << tile;
+            packed |= (long) (tile + 1) << (4 * pos);
+        }
+        return packed;
+    }
+
+    /**
+     * parity() returns the inversion parity of the non-blank tiles of a packed state; states that can reach each
+     * other by moves always have the same parity. Each tile's Lehmer digit (as in rank()) counts the smaller tiles
+     * after it, so the digits add up to the number of inversions. Nothing is allocated, since DistanceOracle checks
+     * the parity on every lookup.
+     * @param state is the packed state
+     * @return 0 if the number of inversions is even, 1 otherwise
+     */
+    public static int parity(long state) {
+        int blank = BOARD.blankOf(state);
+        int used = 0;
+        int inversions = 0;
+        for (int pos = 0; pos < 9; pos++) {
+            if (pos == blank) continue;
+            int tile = Board.tileAt(state, pos) - 1;
+            inversions += tile - Integer.bitCount(used & ((1 << tile) - 1));
+            used |= 1 << tile;
+        }
+        return inversions & 1;
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.Arrays;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * NodeMap for 3x3 searches: dense arrays indexed by permutation rank (see PermutationRank) with a byte per state for
+ * the cost, 2 bits for the incoming move and 1 bit for the flag, about 250 KB in all and no hashing
+ */
+public final class RankNodeMap implements NodeMap {
+    private final byte[] costs = new byte[PermutationRank.NUM_STATES]; // 1 + cost, 0 if not recorded
+    private final long[] moves = new long[(PermutationRank.NUM_STATES + 31) >>> 5];
+    private final long[] flags = new long[(PermutationRank.NUM_STATES + 63) >>> 6];
+    private int size = 0;
+
+    @Override
+    public int cost(long key) {
+        return (costs[PermutationRank.rank(key)] & 0xFF) - 1;
+    }
+
+    @Override
+    public int move(long key) {
+        int rank = PermutationRank.rank(key);
+        return (int) (moves[rank >>> 5] >>> ((rank & 31) << 1)) & 0x3;
+    }
+
+    @Override
+    public void record(long key, int cost, int move) {
+        int rank = PermutationRank.rank(key);
+        if (costs[rank] == 0) size++;
+        costs[rank] = (byte) (cost + 1);
+        int shift = (rank & 31) << 1;
+        moves[rank >>> 5] = (moves[rank >>> 5] & ~(0x3L << shift)) | ((long) move << shift);
+    }
+
+    @Override
+    public boolean mark(long key) {
+        int rank = PermutationRank.rank(key);
+        long bit = 1L << rank;
+        if ((flags[rank >>> 6] & bit) != 0) return false;
+        flags[rank >>> 6] |= bit;
+        return true;
+    }
+
+    @Override
+    public void clearMarks() {
+        Arrays.fill(flags, 0L);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
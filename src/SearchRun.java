@@ -0,0 +1,1931 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * One solve run by SolverEngine: the board, the options of the request, and everything the solvers change while
+ * they search
+ *
+ * A run is made for a single solve and dropped once its SolveResult is built, so its options are final and nothing
+ * has to be put back for the next solve. Runs on different threads share only the oracle and pattern databases,
+ * which are loaded under a lock and only read afterwards. Messages the solvers print (errors, PA*'s nodes per thread)
+ * are kept in a buffer for SolveResult.messages.
+ */
+final class SearchRun {
+    // depths and path costs are kept in a byte per state, so searches never go deeper than this
+    static final int MAX_DEPTH = 255;
+
+    // WA* and ARA* weights are whole hundredths, so their priorities stay integers
+    private static final int WEIGHT_SCALE = 100;
+
+    // file the distance table for 'solve ORACLE' is saved to and mapped from
+    private static final Path ORACLE_FILE = Paths.get("eightpuzzle-distances.bin");
+
+    // distance table, loaded the first time 'solve ORACLE' runs and shared by all runs (see loadOracle())
+    private static DistanceOracle oracle = null;
+
+    // pattern databases for the 'pdb' heuristic by board width, built the first time they are used and shared by all
+    // runs (see loadPatternDatabases()), and whether to cache them to disk (-Deightpuzzle.pdbcache=false turns it off)
+    private static final boolean PDB_CACHE = !"false".equals(System.getProperty("eightpuzzle.pdbcache"));
+    private static final PatternDatabase[][] patternDatabases = new PatternDatabase[Board.MAX_WIDTH + 1][];
+
+    // the board to solve: its geometry and the tile on each cell (a copy the solvers never change)
+    private final Board board;
+    private final int[] tiles;
+
+    // the solver and its options (maxnodes, depthlimit, frontier, threads)
+    private final SolveRequest request;
+    private final int maxNodes;
+    private final int depthLimit;
+    private final String frontierKind;
+    private final int numThreads;
+    private final int weight; // w in hundredths
+
+    // tells the solver to stop early; SolverEngine's callers set it by cancelling or through a deadline
+    private final Cancellation cancellation;
+
+    // optimal solutions of earlier solves, or null to solve without one
+    private final SolutionCache cache;
+
+    // statistics of the solve, made by measure() and filled in by the solver
+    private SearchStats stats = new SearchStats("none");
+
+    // number of puzzle states seen by the solver
+    private int numNodes = 0;
+
+    // where the solvers' messages go
+    private final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+    private final PrintStream out = new PrintStream(messages);
+
+    // this run's references to the shared pattern databases by width, so lookups skip the synchronized loader
+    private final PatternDatabase[][] databasesByWidth = new PatternDatabase[Board.MAX_WIDTH + 1][];
+
+    // scratch space for pattern database lookups: the cell of each tile
+    private final int[] tilePositions = new int[Board.MAX_WIDTH * Board.MAX_WIDTH];
+
+    /**
+     * SearchRun() sets up a solve
+     * @param tiles gives the tile on each cell of a 3x3, 4x4 or 5x5 board; it is copied
+     * @param request is the solver and its options
+     * @param cancellation stops the solve early, or is Cancellation.NONE
+     * @param cache is the solution cache to answer from and add to, or null; only this run may use it meanwhile
+     */
+    SearchRun(int[] tiles, SolveRequest request, Cancellation cancellation, SolutionCache cache) {
+        this.board = Board.forCells(tiles.length);
+        this.tiles = tiles.clone();
+        this.request = request;
+        this.maxNodes = request.maxNodes;
+        this.depthLimit = request.depthLimit;
+        this.frontierKind = request.frontier;
+        this.numThreads = request.threads;
+        this.weight = (int) Math.floor(request.weight * WEIGHT_SCALE + 1e-9); // 2.3 * 100 is 229.99999999999997
+        this.cancellation = cancellation;
+        this.cache = cache;
+    }
+
+    /**
+     * run() runs the solver of the request
+     * @return the solution with its statistics, node count and messages
+     */
+    SolveResult run() {
+        String h = request.heuristic;
+        List<String> solution;
+        switch (request.algorithm) {
+            case "BFS":
+                solution = measure("BFS", this::searchBFS);
+                break;
+            case "EBFS":
+                solution = measure("EBFS", this::searchExternalBFS);
+                break;
+            case "BIBFS":
+                solution = measure("BIBFS", this::searchBiBFS);
+                break;
+            case "DFS":
+                solution = measure("DFS", this::searchDFS);
+                break;
+            case "IDDFS":
+                solution = measure("IDDFS", this::searchIDDFS);
+                break;
+            case "A*":
+                solution = measure("A* " + h, () -> searchAStar(h, WEIGHT_SCALE));
+                break;
+            case "WA*":
+                solution = measure("WA* " + h, () -> searchAStar(h, this.weight));
+                break;
+            case "ARA*":
+                solution = measure("ARA* " + h, () -> searchARAStar(h));
+                break;
+            case "PA*":
+                solution = measure("PA* " + h, () -> searchParallelAStar(h));
+                break;
+            case "IDA*":
+                solution = measure("IDA* " + h, () -> searchIDAStar(h));
+                break;
+            case "SMA*":
+                solution = measure("SMA* " + h, () -> searchSMAStar(h));
+                break;
+            default:
+                solution = measure("ORACLE", this::searchOracle);
+        }
+        this.out.flush();
+        return new SolveResult(solution, this.stats, this.messages.toString(), this.numNodes);
+    }
+
+    /**
+     * searchBFS() solves the puzzle using Breadth-First Search
+     * @return a list of moves that collectively represent the solution to solve the puzzle
+     */
+    private List<String> searchBFS() {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        StateSpace space = StateSpace.create(this.board);
+        NodeMap discovered = space.newNodeMap(); // only the move each state was first reached with is used
+        LongDeque queue = new LongDeque(1024);
+        int expanded = 0;
+
+        // copy of board's original state
+        long origState = space.key(this.tiles);
+        long goalState = space.key(this.board.goalTiles());
+
+        // put current state of board into queue
+        queue.addLast(origState);
+        discovered.record(origState, 0, 0);
+        boolean found = false;
+        while (!queue.isEmpty()) {
+            long state = queue.pollFirst();
+
+            if (state == goalState) {
+                found = true;
+                break;
+            }
+
+            if (++expanded > this.maxNodes) {
+                stats.closedSize(discovered.size());
+                return maxNodesReached();
+            }
+            if (this.cancellation.shouldStop()) return stopped();
+            stats.expanded++;
+
+            int blank = space.blank(state);
+            for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                int dir = Integer.numberOfTrailingZeros(moves);
+                int target = board.target(blank, dir);
+                long nextState = space.child(state, blank, target);
+                stats.generated++;
+                if (discovered.cost(nextState) != NodeMap.UNSEEN) {
+                    stats.duplicates++;
+                    continue;
+                }
+                discovered.record(nextState, 0, dir);
+                queue.addLast(nextState);
+            }
+            stats.frontierSize(queue.size());
+        }
+
+        stats.closedSize(discovered.size());
+        this.numNodes = expanded;
+        return found ? traceParents(space, discovered, origState, goalState) : noSolution();
+    }
+
+    /**
+     * searchExternalBFS() solves the puzzle using Breadth-First Search with its layers kept in files instead of memory
+     * (see ExternalBfs), for searches whose states do not fit in the heap. The request's buffer is the number of
+     * children it sorts in memory at a time. A solve that is stopped early, by maxnodes too, can be run again and
+     * carries on from its last complete layer. Boards are limited to 16 cells.
+     * @return the (optimal) solution represented as a list of moves
+     */
+    private List<String> searchExternalBFS() {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        if (!board.fitsInLong()) {
+            this.out.println("Error: solve EBFS is only available for boards of up to 16 cells");
+            stats.outcome = SearchStats.UNSUPPORTED;
+            return new ArrayList<>();
+        }
+
+        ExternalBfs search = new ExternalBfs(this.board, this.board.pack(this.tiles), this.request.buffer,
+                this.maxNodes, this.cancellation);
+        boolean found;
+        try {
+            found = search.run();
+        } catch (IOException e) {
+            this.out.println("Error: external BFS failed: " + e.getMessage());
+            stats.outcome = SearchStats.FILE_ERROR;
+            return new ArrayList<>();
+        }
+        if (search.resumedDepth >= 0) this.out.println("Resumed after depth " + search.resumedDepth);
+
+        stats.generated = search.generated;
+        stats.expanded = search.expanded;
+        stats.duplicates = search.duplicates;
+        stats.frontierSize(search.largestLayer);
+        stats.closedSize(search.stored);
+        this.numNodes = (int) Math.min(search.stored, Integer.MAX_VALUE);
+        if (search.limited || (!found && this.cancellation.reason() != null)) {
+            List<String> stop = search.limited ? maxNodesReached() : stopped();
+            this.out.println("Layer files kept in " + search.dir + " for the next solve of this board to resume from");
+            return stop;
+        }
+        if (!found) return noSolution();
+
+        List<String> solution = new ArrayList<>();
+        for (byte dir : search.path) {
+            solution.add(Move.of(dir).label);
+        }
+        return solution;
+    }
+
+    /**
+     * searchBiBFS() solves the puzzle using bidirectional Breadth-First Search: one search forward from the current
+     * state and one backward from the goal state, expanding a whole layer of the smaller frontier at a time. Once a
+     * layer reaches a state the other side has seen, the shortest of the paths joined that way is optimal.
+     * @return a list of moves that collectively represent the solution to solve the puzzle
+     */
+    private List<String> searchBiBFS() {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        StateSpace space = StateSpace.create(this.board);
+        long origState = space.key(this.tiles);
+        long goalState = space.key(this.board.goalTiles());
+        if (origState == goalState) return new ArrayList<>();
+
+        // index 0 is the forward search from the start, index 1 the backward search from the goal
+        LongDeque[] frontiers = {new LongDeque(1024), new LongDeque(1024)};
+        NodeMap[] depths = {space.newNodeMap(), space.newNodeMap()};
+        int[] layers = {0, 0};
+        int expanded = 0;
+
+        frontiers[0].addLast(origState);
+        depths[0].record(origState, 0, 0);
+        frontiers[1].addLast(goalState);
+        depths[1].record(goalState, 0, 0);
+
+        long meeting = -1;
+        int bestLength = Integer.MAX_VALUE;
+        while (meeting == -1 && !frontiers[0].isEmpty() && !frontiers[1].isEmpty()) {
+            int side = frontiers[0].size() <= frontiers[1].size() ? 0 : 1;
+            NodeMap own = depths[side];
+            NodeMap other = depths[1 - side];
+            LongDeque frontier = frontiers[side];
+            int childDepth = Math.min(++layers[side], MAX_DEPTH - 1);
+
+            for (int remaining = frontier.size(); remaining > 0; remaining--) {
+                long state = frontier.pollFirst();
+                if (++expanded > this.maxNodes) {
+                    stats.closedSize(depths[0].size() + depths[1].size());
+                    return maxNodesReached();
+                }
+                if (this.cancellation.shouldStop()) return stopped();
+                stats.expanded++;
+
+                int blank = space.blank(state);
+                for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                    int dir = Integer.numberOfTrailingZeros(moves);
+                    int target = board.target(blank, dir);
+                    long nextState = space.child(state, blank, target);
+                    stats.generated++;
+                    if (own.cost(nextState) != NodeMap.UNSEEN) {
+                        stats.duplicates++;
+                        continue;
+                    }
+                    own.record(nextState, childDepth, dir);
+                    frontier.addLast(nextState);
+
+                    // the frontiers touch; keep the shortest join found in this layer
+                    int otherDepth = other.cost(nextState);
+                    if (otherDepth != NodeMap.UNSEEN && childDepth + otherDepth < bestLength) {
+                        bestLength = childDepth + otherDepth;
+                        meeting = nextState;
+                    }
+                }
+            }
+            stats.frontierSize(frontiers[0].size() + frontiers[1].size());
+        }
+
+        stats.closedSize(depths[0].size() + depths[1].size());
+        this.numNodes = expanded;
+        if (meeting == -1) return noSolution();
+
+        // start -> meeting state from the forward records, then meeting state -> goal by reversing backward records
+        List<String> solution = traceParents(space, depths[0], origState, meeting);
+        long state = meeting;
+        while (state != goalState) {
+            int dir = depths[1].move(state) ^ 1;
+            solution.add(Move.of(dir).label);
+            int blank = space.blank(state);
+            state = space.child(state, blank, board.target(blank, dir));
+        }
+        return solution;
+    }
+
+    /**
+     * searchDFS() solves the puzzle using Depth-First Search
+     * @return a list of moves that represent the solution
+     */
+    private List<String> searchDFS() {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        StateSpace space = StateSpace.create(this.board);
+        NodeMap visited = space.newNodeMap(); // shallowest depth each state was visited at, and the move made there
+
+        // depths are stored in a byte, so deeper limits are capped
+        int limit = Math.min(this.depthLimit, MAX_DEPTH);
+
+        // frontier entries take two slots: the state, then its depth and the move from its parent (depth | move << 8).
+        // Each depth holds at most four waiting siblings, so the stack is allocated once at its largest size
+        LongDeque stack = new LongDeque(2 * (4 * Math.max(limit, 0) + 1));
+        long origState = space.key(this.tiles);
+        long goalState = space.key(this.board.goalTiles());
+
+        stack.addLast(origState);
+        stack.addLast(0);
+        boolean found = false;
+        while (!stack.isEmpty()) {
+            int info = (int) stack.pollLast();
+            long state = stack.pollLast();
+            int depth = info & 0xFF;
+            int prevMove = info >>> 8;
+
+            if (depth >= limit) continue;
+
+            int bestDepth = visited.cost(state);
+            if (bestDepth != NodeMap.UNSEEN && bestDepth <= depth) {
+                stats.duplicates++;
+                continue;
+            }
+            if (bestDepth != NodeMap.UNSEEN) stats.reopened++; // reached again by a shorter path
+
+            // updating parents
+            visited.record(state, depth, prevMove);
+
+            if (visited.size() > this.maxNodes) {
+                stats.closedSize(visited.size());
+                return maxNodesReached();
+            }
+            if (this.cancellation.shouldStop()) return stopped();
+
+            if (state == goalState) {
+                found = true;
+                break;
+            }
+
+            // process its neighbors
+            stats.expanded++;
+            int blank = space.blank(state);
+            for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                int dir = Integer.numberOfTrailingZeros(moves);
+                int target = board.target(blank, dir);
+                stack.addLast(space.child(state, blank, target));
+                stack.addLast((depth + 1) | (dir << 8));
+                stats.generated++;
+            }
+            stats.frontierSize(stack.size() / 2);
+        }
+
+        stats.closedSize(visited.size());
+        this.numNodes = visited.size();
+
+        return found ? traceParents(space, visited, origState, goalState) : noSolution();
+    }
+
+    /**
+     * searchIDDFS() solves the puzzle using Iterative-Deepening Depth-First Search: depth-limited searches with
+     * bounds 0, 1, 2, ... up to depthlimit - 1, so the first solution found is a shortest one that DFS with the same
+     * depthlimit could find. Like IDA* it changes a single board in place and never undoes its last move; beyond that
+     * it only checks children against the states on the current path, so it keeps no seen states. maxnodes limits
+     * the nodes expanded over all iterations.
+     * @return the (optimal) solution represented as a list of moves
+     */
+    private List<String> searchIDDFS() {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        IddfsSearch search = new IddfsSearch(this.tiles);
+        int limit = Math.min(this.depthLimit, MAX_DEPTH);
+        int result = IddfsSearch.NOT_FOUND;
+        for (int bound = 0; bound < limit && result == IddfsSearch.NOT_FOUND; bound++) {
+            result = search.run(bound);
+        }
+
+        stats.generated = search.nodes;
+        stats.expanded = search.expanded;
+        stats.duplicates = search.cycles;
+        stats.frontierSize(search.maxPath);
+        this.numNodes = (int) Math.min(search.nodes, Integer.MAX_VALUE);
+        if (result == IddfsSearch.STOPPED) return stopped();
+        if (result == IddfsSearch.CUTOFF) return maxNodesReached();
+        if (result == IddfsSearch.NOT_FOUND) return noSolution();
+
+        List<String> solution = new ArrayList<>();
+        for (int i = 0; i < result; i++) {
+            solution.add(Move.of(search.path[i]).label);
+        }
+        return solution;
+    }
+
+    /**
+     * IddfsSearch holds the mutable board and the explicit stack of searchIDDFS(): for each depth on the current
+     * path, the move made there, the moves still to try and, on boards of up to 16 cells, the packed state, so a node
+     * costs a few array writes and no allocation. A child that repeats a state on the current path is skipped. The
+     * blank alternates between the two colors of a checkerboard, so only every other ancestor can match, and undoing
+     * the last move is ruled out before the child is made. 5x5 boards do not pack into a long and only get that last
+     * check.
+     */
+    private final class IddfsSearch {
+        // results of run() besides the length of the solution found
+        static final int NOT_FOUND = -1;
+        static final int CUTOFF = -2;  // the maxnodes limit was reached
+        static final int STOPPED = -3; // the solve was cancelled or ran out of time
+
+        final int[] tiles;
+        final byte[] path = new byte[MAX_DEPTH];        // moves from the start to the current node
+        final byte[] untried = new byte[MAX_DEPTH + 1]; // moves not tried yet at each depth, as a bitmask
+        final long[] keys;                              // packed states on the path, or null above 16 cells
+        long key;                                       // packed current state
+        int blank;
+        int misplaced; // non-blank tiles off their goal cell, 0 only at the goal
+        long nodes = 0;
+        long expanded = 0;
+        long cycles = 0; // children skipped as repeats of an ancestor
+        int maxPath = 0; // longest path tried
+
+        IddfsSearch(int[] tiles) {
+            this.tiles = tiles.clone();
+            for (int cell = 0; cell < tiles.length; cell++) {
+                if (tiles[cell] == 0) this.blank = cell;
+                else if (tiles[cell] != cell) this.misplaced++;
+            }
+            this.keys = board.fitsInLong() ? new long[MAX_DEPTH + 1] : null;
+            if (keys != null) keys[0] = key = board.pack(tiles);
+        }
+
+        /**
+         * run() searches every path of up to bound moves from the start, depth first. An iteration that finds
+         * nothing backs out to the start again, so the next one begins from the same board.
+         * @param bound is the depth bound
+         * @return the length of the solution in path, or NOT_FOUND, CUTOFF or STOPPED
+         */
+        int run(int bound) {
+            if (misplaced == 0) return 0;
+            int depth = 0;
+            untried[0] = 0;
+            if (bound > 0) {
+                if (++expanded > maxNodes) return CUTOFF;
+                untried[0] = (byte) board.legalMoves(blank);
+            }
+            while (true) {
+                int moves = untried[depth];
+                if (moves == 0) {
+                    if (depth == 0) return NOT_FOUND;
+                    depth--;
+                    slide(path[depth] ^ 1); // opposite moves differ in bit 0
+                    continue;
+                }
+                int dir = Integer.numberOfTrailingZeros(moves);
+                untried[depth] = (byte) (moves & (moves - 1));
+                slide(dir);
+                path[depth++] = (byte) dir;
+                nodes++;
+                if (depth > maxPath) maxPath = depth;
+                if (keys != null && onPath(depth)) {
+                    cycles++;
+                    depth--;
+                    slide(dir ^ 1);
+                    continue;
+                }
+
+                if (misplaced == 0) return depth;
+                untried[depth] = 0;
+                if (depth < bound) {
+                    if (++expanded > maxNodes) return CUTOFF;
+                    if (cancellation.shouldStop()) return STOPPED;
+                    untried[depth] = (byte) (board.legalMoves(blank) & ~(1 << (dir ^ 1))); // never undo the last move
+                }
+            }
+        }
+
+        /**
+         * onPath() checks if the state at a depth repeats an ancestor, and otherwise records it there
+         */
+        private boolean onPath(int depth) {
+            for (int i = depth - 4; i >= 0; i -= 2) {
+                if (keys[i] == key) return true;
+            }
+            keys[depth] = key;
+            return false;
+        }
+
+        /**
+         * slide() moves the blank one cell, keeping the count of misplaced tiles and the packed state up to date
+         */
+        private void slide(int dir) {
+            int target = board.target(blank, dir);
+            if (keys != null) key = Board.slide(key, blank, target);
+            int tile = tiles[target];
+            misplaced += board.misplacedDelta(tile, target, blank);
+            tiles[blank] = tile;
+            tiles[target] = 0;
+            blank = target;
+        }
+    }
+
+    /**
+     * searchAStar() solves the puzzle using A* search, or weighted A* (WA*) when w is above 1: WA* orders the frontier
+     * by g(n) + w * h(n), which goes deeper toward the goal and finds a solution at most w times as long as an
+     * optimal one after far fewer expansions
+     * @param h is the heuristic function
+     * @param weight is w in hundredths, 100 for A*
+     * @return the solution represented as a list of moves
+     */
+    private List<String> searchAStar(String h, int weight) {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        StateSpace space = StateSpace.create(this.board);
+        // entries hold the state and g(n), prioritized by f(n) = g(n) + w * h(n), which is scaled to the integer
+        // scale * g(n) + weight * h(n) (1 and 1 for A*, 2 and 3 for w = 1.5)
+        int scale = WEIGHT_SCALE / gcd(WEIGHT_SCALE, weight);
+        weight /= gcd(WEIGHT_SCALE, weight);
+        Frontier frontier = Frontier.create(this.frontierKind);
+        NodeMap nodes = space.newNodeMap(); // cheapest known g(n), the move it was reached with, and if expanded
+        int[] stateTiles = new int[board.cells];
+        boolean incremental = isIncremental(h);
+        int numExpanded = 0;
+
+        // frontier states with a cached optimal solution are queued with its exact length as h(n); the first one
+        // polled ends the search, since no path through another state can be shorter
+        String solver = cacheKey("A* " + h);
+        SolutionCache cache = weight == scale ? cacheFor(solver) : null; // WA* paths need not be optimal
+        long splice = -1;
+
+        long origState = space.key(this.tiles);
+        long goalState = space.key(this.board.goalTiles());
+
+        stats.rootH = heuristic(h, this.tiles);
+        frontier.add(origState, 0, weight * stats.rootH);
+        nodes.record(origState, 0, 0);
+        boolean found = false;
+        while (!frontier.isEmpty()) {
+            stats.frontierSize(frontier.size());
+            long state = frontier.poll();
+            int pathCost = frontier.polledCost();
+
+            if (state == goalState) {
+                found = true;
+                break;
+            }
+
+            // skip entries that were superseded by a cheaper path
+            if (nodes.cost(state) < pathCost) continue;
+            if (cache != null && cache.remaining(solver, state) >= 0) {
+                splice = state;
+                found = true;
+                break;
+            }
+            if (nodes.mark(state)) {
+                numExpanded++;
+            } else {
+                stats.reopened++; // expanded before, with a higher g(n)
+            }
+            if (numExpanded > this.maxNodes) {
+                stats.closedSize(nodes.size());
+                return maxNodesReached();
+            }
+            if (this.cancellation.shouldStop()) return stopped();
+            stats.expanded++;
+            if (pathCost + 1 >= MAX_DEPTH) continue;
+
+            // process next states; h(n) of this one follows from f(n) and g(n), and h1-h3 of the children from it
+            int hValue = (frontier.polledPriority() - scale * pathCost) / weight;
+            int blank = space.blank(state);
+            if (!incremental || h.equals("h3")) space.tiles(state, stateTiles);
+            for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                int dir = Integer.numberOfTrailingZeros(moves);
+                int target = board.target(blank, dir);
+                long nextState = space.child(state, blank, target);
+                stats.generated++;
+                int known = nodes.cost(nextState);
+                if (known != NodeMap.UNSEEN && known <= pathCost + 1) {
+                    stats.duplicates++;
+                    continue;
+                }
+
+                // update parents
+                nodes.record(nextState, pathCost + 1, dir);
+
+                // add next state to frontier
+                int nextH;
+                if (incremental) {
+                    nextH = hValue + heuristicDelta(h, stateTiles, space.tile(state, target), blank, target);
+                } else {
+                    space.tiles(nextState, stateTiles);
+                    nextH = heuristic(h, stateTiles);
+                }
+                if (cache != null) {
+                    int remaining = cache.remaining(solver, nextState);
+                    if (remaining >= 0) nextH = remaining;
+                }
+                frontier.add(nextState, pathCost + 1, weight * nextH + scale * (pathCost + 1));
+            }
+        }
+
+        stats.closedSize(nodes.size());
+        this.numNodes = numExpanded;
+        if (found && splice != -1) {
+            List<String> solution = traceParents(space, nodes, origState, splice);
+            solution.addAll(cache.splice(solver, splice));
+            return solution;
+        }
+        return found ? traceParents(space, nodes, origState, goalState) : noSolution();
+    }
+
+    /**
+     * searchARAStar() solves the puzzle using Anytime Repairing A* (ARA*). A weighted A* search with the request's w
+     * finds a first solution quickly; then w is lowered toward 1 and the search goes on from the frontier and g(n)
+     * values it has, reordered for the new w, instead of starting over. A state whose g(n) drops after it was
+     * expanded waits in a list of inconsistent states for the next search, so each search expands a state at most
+     * once. Each shorter solution goes to the request's listener as it is found, with the bound
+     * min(w, g(goal) / min f(n)) over the states left to expand. The search ends once a solution is proved optimal,
+     * and when the deadline, a cancellation or the maxnodes limit stops it, the best solution so far is the result.
+     * @param h is the heuristic function
+     * @return the best solution found, as a list of moves
+     */
+    private List<String> searchARAStar(String h) {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        StateSpace space = StateSpace.create(this.board);
+        // entries hold the state and g(n), prioritized by scale * g(n) + weight * h(n) for the current w, as in WA*
+        int w = this.weight;
+        int scale = WEIGHT_SCALE / gcd(WEIGHT_SCALE, w);
+        int weight = w / gcd(WEIGHT_SCALE, w);
+        Frontier frontier = Frontier.create(this.frontierKind);
+        NodeMap nodes = space.newNodeMap(); // cheapest known g(n), the move it was reached with, and if expanded
+        LongDeque inconsistent = new LongDeque(64); // the state, g(n) and h(n) of each
+        int[] stateTiles = new int[board.cells];
+        boolean incremental = isIncremental(h);
+        int numExpanded = 0;
+
+        long origState = space.key(this.tiles);
+        long goalState = space.key(this.board.goalTiles());
+
+        stats.rootH = heuristic(h, this.tiles);
+        frontier.add(origState, 0, weight * stats.rootH);
+        nodes.record(origState, 0, 0);
+        List<String> best = null;
+        while (true) {
+            // expand until the goal is reached and no frontier state has a lower priority than its g(n)
+            boolean stopped = false;
+            while (!frontier.isEmpty()) {
+                stats.frontierSize(frontier.size());
+                long state = frontier.poll();
+                int pathCost = frontier.polledCost();
+                int priority = frontier.polledPriority();
+                int goalCost = nodes.cost(goalState);
+                if (goalCost != NodeMap.UNSEEN && priority >= scale * goalCost) {
+                    frontier.add(state, pathCost, priority); // left for the next search
+                    break;
+                }
+
+                // skip entries that were superseded by a cheaper path
+                if (nodes.cost(state) < pathCost) continue;
+                int hValue = (priority - scale * pathCost) / weight;
+                if (!nodes.mark(state)) {
+                    // expanded before in this search, with a higher g(n)
+                    inconsistent.addLast(state);
+                    inconsistent.addLast(pathCost);
+                    inconsistent.addLast(hValue);
+                    stats.reopened++;
+                    continue;
+                }
+                if (++numExpanded > this.maxNodes || this.cancellation.shouldStop()) {
+                    stopped = true;
+                    break;
+                }
+                stats.expanded++;
+                if (pathCost + 1 >= MAX_DEPTH) continue;
+
+                // process next states
+                int blank = space.blank(state);
+                if (!incremental || h.equals("h3")) space.tiles(state, stateTiles);
+                for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                    int dir = Integer.numberOfTrailingZeros(moves);
+                    int target = board.target(blank, dir);
+                    long nextState = space.child(state, blank, target);
+                    stats.generated++;
+                    int known = nodes.cost(nextState);
+                    if (known != NodeMap.UNSEEN && known <= pathCost + 1) {
+                        stats.duplicates++;
+                        continue;
+                    }
+                    nodes.record(nextState, pathCost + 1, dir);
+                    int nextH;
+                    if (incremental) {
+                        nextH = hValue + heuristicDelta(h, stateTiles, space.tile(state, target), blank, target);
+                    } else {
+                        space.tiles(nextState, stateTiles);
+                        nextH = heuristic(h, stateTiles);
+                    }
+                    frontier.add(nextState, pathCost + 1, weight * nextH + scale * (pathCost + 1));
+                }
+            }
+
+            int goalCost = nodes.cost(goalState);
+            if (stopped || goalCost == NodeMap.UNSEEN) {
+                stats.closedSize(nodes.size());
+                this.numNodes = numExpanded;
+                if (best != null) return best;
+                if (!stopped) return noSolution();
+                return numExpanded > this.maxNodes ? maxNodesReached() : stopped();
+            }
+
+            // reorder the states left to expand for the next w, halfway down to 1, and find the lowest f(n) among
+            // them, which bounds the optimal solution length from below
+            int nextW = WEIGHT_SCALE + (w - WEIGHT_SCALE) / 2;
+            int nextScale = WEIGHT_SCALE / gcd(WEIGHT_SCALE, nextW);
+            int nextWeight = nextW / gcd(WEIGHT_SCALE, nextW);
+            Frontier next = Frontier.create(this.frontierKind);
+            int lowestF = Integer.MAX_VALUE;
+            while (!frontier.isEmpty()) {
+                long state = frontier.poll();
+                int pathCost = frontier.polledCost();
+                if (nodes.cost(state) < pathCost) continue;
+                int hValue = (frontier.polledPriority() - scale * pathCost) / weight;
+                lowestF = Math.min(lowestF, pathCost + hValue);
+                next.add(state, pathCost, nextWeight * hValue + nextScale * pathCost);
+            }
+            while (!inconsistent.isEmpty()) {
+                long state = inconsistent.pollFirst();
+                int pathCost = (int) inconsistent.pollFirst();
+                int hValue = (int) inconsistent.pollFirst();
+                if (nodes.cost(state) < pathCost) continue;
+                lowestF = Math.min(lowestF, pathCost + hValue);
+                next.add(state, pathCost, nextWeight * hValue + nextScale * pathCost);
+            }
+
+            if (best == null || goalCost < best.size()) {
+                best = traceParents(space, nodes, origState, goalState);
+                double bound = Math.min((double) w / WEIGHT_SCALE, (double) goalCost / Math.max(lowestF, 1));
+                if (request.improvements != null) {
+                    request.improvements.accept(Collections.unmodifiableList(new ArrayList<>(best)),
+                            Math.max(bound, 1));
+                }
+            }
+            if (w == WEIGHT_SCALE || lowestF >= goalCost) {
+                stats.closedSize(nodes.size());
+                this.numNodes = numExpanded;
+                return best;
+            }
+            w = nextW;
+            scale = nextScale;
+            weight = nextWeight;
+            frontier = next;
+            nodes.clearMarks();
+        }
+    }
+
+    /**
+     * searchIDAStar() solves the puzzle using Iterative-Deepening A*: repeated depth-first searches that cut off
+     * paths whose f(n) = g(n) + h(n) exceeds a bound, raising the bound to the smallest f(n) that was cut off each
+     * time. It works on a single board that is changed in place and restored on the way back, and keeps no seen
+     * states, so memory only grows with the solution depth and maxnodes does not apply.
+     * @param h is the heuristic function
+     * @return the (optimal) solution represented as a list of moves
+     */
+    private List<String> searchIDAStar(String h) {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        IdaStarSearch search = new IdaStarSearch(this.tiles, h);
+        int hValue = heuristic(h, this.tiles);
+        stats.rootH = hValue;
+        int bound = hValue;
+        int result;
+        do {
+            result = search.run(0, hValue, bound, -1);
+            bound = result;
+        } while (result != IdaStarSearch.FOUND && result != IdaStarSearch.STOPPED && result != Integer.MAX_VALUE);
+
+        stats.generated = search.nodes;
+        stats.expanded = search.expanded;
+        stats.frontierSize(search.maxPath);
+        this.numNodes = (int) Math.min(search.nodes, Integer.MAX_VALUE);
+        if (result == IdaStarSearch.STOPPED) return stopped();
+        if (result != IdaStarSearch.FOUND) return noSolution();
+
+        List<String> solution = new ArrayList<>();
+        for (int i = 0; i < search.depth; i++) {
+            solution.add(Move.of(search.path[i]).label);
+        }
+        return solution;
+    }
+
+    /**
+     * IdaStarSearch holds the mutable board and current path for searchIDAStar()
+     */
+    private final class IdaStarSearch {
+        // results of run() when the goal was reached, and when the solve was cancelled or ran out of time
+        static final int FOUND = -1;
+        static final int STOPPED = -2;
+
+        final int[] tiles;
+        final byte[] path = new byte[MAX_DEPTH]; // moves from the start to the current node
+        final String h;
+        final boolean incremental; // h1-h3 are updated move by move (see heuristicDelta())
+        int blank;
+        int depth;  // length of the path once the goal is found
+        long nodes = 0;
+        long expanded = 0;
+        int maxPath = 0; // longest path tried, the most IDA* ever holds in memory
+
+        IdaStarSearch(int[] tiles, String h) {
+            this.tiles = tiles.clone();
+            for (int cell = 0; cell < tiles.length; cell++) {
+                if (tiles[cell] == 0) this.blank = cell;
+            }
+            this.h = h;
+            this.incremental = isIncremental(h);
+        }
+
+        /**
+         * run() searches below the current node, which has path cost g and heuristic value hValue
+         * @param prevDir is the move that led here (-1 at the root); its reverse is never tried
+         * @return FOUND, or the smallest f(n) that exceeded the bound (Integer.MAX_VALUE if none did)
+         */
+        int run(int g, int hValue, int bound, int prevDir) {
+            int f = g + hValue;
+            if (f > bound) return f;
+            if (hValue == 0) {
+                depth = g;
+                return FOUND;
+            }
+            if (g + 1 >= MAX_DEPTH) return Integer.MAX_VALUE;
+            if (cancellation.shouldStop()) return STOPPED;
+            expanded++;
+            if (g + 1 > maxPath) maxPath = g + 1;
+
+            int min = Integer.MAX_VALUE;
+            int from = blank;
+            int moves = board.legalMoves(from);
+            if (prevDir >= 0) moves &= ~(1 << (prevDir ^ 1)); // never undo the last move
+            for (; moves != 0; moves &= moves - 1) {
+                int dir = Integer.numberOfTrailingZeros(moves);
+                int target = board.target(from, dir);
+                int tile = tiles[target];
+                int delta = incremental ? heuristicDelta(h, tiles, tile, from, target) : 0;
+                tiles[from] = tile;
+                tiles[target] = 0;
+                blank = target;
+                int nextH = incremental ? hValue + delta : heuristic(h, tiles);
+                path[g] = (byte) dir;
+                nodes++;
+
+                int result = run(g + 1, nextH, bound, dir);
+
+                // undo the move
+                tiles[target] = tile;
+                tiles[from] = 0;
+                blank = from;
+
+                if (result == FOUND || result == STOPPED) return result;
+                if (result < min) min = result;
+            }
+            return min;
+        }
+    }
+
+    /**
+     * searchSMAStar() solves the puzzle using simplified memory-bounded A* (SMA*), which searches like A* but never
+     * holds more than maxnodes nodes. When memory is full it forgets the leaf with the highest f(n) (the shallowest on
+     * ties) and backs its f(n) up into the parent, which regenerates the leaf if that path becomes the most promising
+     * again. A child gets at least its parent's f(n) and a parent whose children are all known takes the lowest of
+     * theirs, so f(n) stays a lower bound and the first goal selected is optimal. Paths of maxnodes - 1 moves or more
+     * cannot fit in memory and are given up, so maxnodes only fails the solve when no solution fits; nodes counts
+     * every node generated, including regenerated ones. Boards are limited to 16 cells.
+     * @param h is the heuristic function
+     * @return the (optimal) solution represented as a list of moves
+     */
+    private List<String> searchSMAStar(String h) {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        if (!board.fitsInLong()) {
+            this.out.println("Error: solve SMA* is only available for boards of up to 16 cells");
+            stats.outcome = SearchStats.UNSUPPORTED;
+            return new ArrayList<>();
+        }
+        StateSpace space = StateSpace.create(this.board);
+        SmaStarSearch search = new SmaStarSearch(space, h, this.maxNodes);
+
+        stats.rootH = heuristic(h, this.tiles);
+        SmaStarSearch.Node goal = search.run(space.key(this.tiles), stats.rootH, space.key(this.board.goalTiles()));
+
+        stats.generated = search.nodes;
+        stats.expanded = search.expanded;
+        stats.reopened = search.regenerated;
+        stats.frontierSize(search.peakOpen);
+        stats.closedSize(search.peakMemory);
+        this.numNodes = (int) Math.min(search.nodes, Integer.MAX_VALUE);
+        if (goal == null && this.cancellation.reason() != null) return stopped();
+        if (goal == null) {
+            this.out.println("Error: no solution fits in maxnodes (" + this.maxNodes + ") nodes");
+            stats.outcome = SearchStats.NO_SOLUTION;
+            return new ArrayList<>();
+        }
+
+        List<String> solution = new ArrayList<>();
+        for (SmaStarSearch.Node node = goal; node.parent != null; node = node.parent) {
+            solution.add(Move.of(node.dir).label);
+        }
+        Collections.reverse(solution);
+        return solution;
+    }
+
+    /**
+     * SmaStarSearch holds the search tree of searchSMAStar(): the nodes in memory, linked to their parents and
+     * children, and the f(n) values backed up from the children that were forgotten
+     */
+    private final class SmaStarSearch {
+        // f(n) of a node that cannot reach the goal within the memory budget
+        static final int INFINITE = Integer.MAX_VALUE;
+
+        // best first: lowest f(n), then deepest, then oldest
+        static final Comparator<Node> BEST_FIRST = (a, b) -> a.f != b.f ? Integer.compare(a.f, b.f)
+                : a.g != b.g ? Integer.compare(b.g, a.g) : Long.compare(a.id, b.id);
+
+        final StateSpace space;
+        final String h;
+        final boolean incremental; // h1-h3 are updated move by move (see heuristicDelta())
+        final int budget;
+        final int[] stateTiles = new int[board.cells];
+
+        // nodes with a successor that is not in memory, and nodes without children in memory; the best node to
+        // expand is open.first() and the one to forget is leaves.last()
+        final TreeSet<Node> open = new TreeSet<>(BEST_FIRST);
+        final TreeSet<Node> leaves = new TreeSet<>(BEST_FIRST);
+        int inMemory = 0;
+        long nextId = 0;
+
+        long nodes = 0;
+        long expanded = 0;
+        long regenerated = 0;
+        int peakOpen = 0;
+        int peakMemory = 0;
+
+        SmaStarSearch(StateSpace space, String h, int budget) {
+            this.space = space;
+            this.h = h;
+            this.incremental = isIncremental(h);
+            this.budget = Math.max(budget, 1);
+        }
+
+        /**
+         * run() searches from a start state until the goal is selected for expansion
+         * @return the goal node, or null if no solution fits in memory
+         */
+        Node run(long origState, int rootH, long goalState) {
+            int rootF = rootH > budget - 1 ? INFINITE : rootH;
+            Node root = new Node(origState, 0, rootH, rootF, null, -1, board.legalMoves(space.blank(origState)));
+            add(root);
+            peakMemory = 1;
+            while (!open.isEmpty()) {
+                Node best = open.first();
+                if (best.f == INFINITE || cancellation.shouldStop()) return null;
+                if (best.state == goalState) return best;
+                expanded++;
+
+                // generate one successor: a new one if there is any left, else the forgotten one with the lowest f(n)
+                int dir;
+                if (best.unexplored != 0) {
+                    dir = Integer.numberOfTrailingZeros(best.unexplored);
+                } else {
+                    dir = -1;
+                    for (int moves = best.forgotten; moves != 0; moves &= moves - 1) {
+                        int d = Integer.numberOfTrailingZeros(moves);
+                        if (dir == -1 || best.forgottenF[d] < best.forgottenF[dir]) dir = d;
+                    }
+                }
+                int blank = space.blank(best.state);
+                int target = board.target(blank, dir);
+                long nextState = space.child(best.state, blank, target);
+                int nextH;
+                if (incremental) {
+                    if (h.equals("h3")) space.tiles(best.state, stateTiles);
+                    nextH = best.h + heuristicDelta(h, stateTiles, space.tile(best.state, target), blank, target);
+                } else {
+                    space.tiles(nextState, stateTiles);
+                    nextH = heuristic(h, stateTiles);
+                }
+                int g = best.g + 1;
+                int f;
+                if (nextState != goalState && g >= budget - 1) {
+                    f = INFINITE; // its children would not fit in memory along with its path
+                } else {
+                    f = Math.max(best.f, g + nextH);
+                    if ((best.forgotten & (1 << dir)) != 0) f = Math.max(f, best.forgottenF[dir]);
+                    if (f > budget - 1) f = INFINITE; // a path of f(n) moves or more holds more than budget nodes
+                }
+                if ((best.forgotten & (1 << dir)) != 0) regenerated++;
+                nodes++;
+
+                best.unexplored &= ~(1 << dir);
+                best.forgotten &= ~(1 << dir);
+                Node child = new Node(nextState, g, nextH, f, best, dir,
+                        board.legalMoves(target) & ~(1 << (dir ^ 1))); // never undo the last move
+                best.children[dir] = child;
+                if (best.childCount++ == 0) leaves.remove(best);
+                if (best.unexplored == 0 && best.forgotten == 0) open.remove(best);
+                add(child);
+                if (best.unexplored == 0) backUp(best);
+
+                while (inMemory > budget) forgetWorstLeaf();
+                if (inMemory > peakMemory) peakMemory = inMemory;
+            }
+            return null;
+        }
+
+        /**
+         * add() puts a new node in memory, as a leaf with successors to generate
+         */
+        void add(Node node) {
+            open.add(node);
+            leaves.add(node);
+            inMemory++;
+            if (open.size() > peakOpen) peakOpen = open.size();
+        }
+
+        /**
+         * backUp() raises f(n) of a node whose successors have all been generated to the lowest f(n) among them, and
+         * passes the change on to its ancestors
+         */
+        void backUp(Node node) {
+            while (node != null && node.unexplored == 0) {
+                int min = INFINITE;
+                for (int dir = 0; dir < 4; dir++) {
+                    if (node.children[dir] != null) min = Math.min(min, node.children[dir].f);
+                    if ((node.forgotten & (1 << dir)) != 0) min = Math.min(min, node.forgottenF[dir]);
+                }
+                if (min <= node.f) return;
+                setF(node, min);
+                node = node.parent;
+            }
+        }
+
+        /**
+         * forgetWorstLeaf() removes the leaf with the highest f(n) (the root is never removed) and keeps its f(n) in
+         * the parent
+         */
+        void forgetWorstLeaf() {
+            Node worst = leaves.last();
+            if (worst.parent == null) worst = leaves.lower(worst);
+            leaves.remove(worst);
+            open.remove(worst);
+            inMemory--;
+
+            Node parent = worst.parent;
+            parent.children[worst.dir] = null;
+            parent.forgotten |= 1 << worst.dir;
+            parent.forgottenF[worst.dir] = worst.f;
+            if (--parent.childCount == 0) leaves.add(parent);
+            open.add(parent);
+        }
+
+        /**
+         * setF() changes f(n) of a node, which reorders it in open and leaves
+         */
+        void setF(Node node, int f) {
+            boolean inOpen = open.remove(node);
+            boolean inLeaves = leaves.remove(node);
+            node.f = f;
+            if (inOpen) open.add(node);
+            if (inLeaves) leaves.add(node);
+        }
+
+        /**
+         * Node is one node of the search tree
+         */
+        final class Node {
+            final long state;
+            final int g;
+            final int h;
+            int f;
+            final Node parent;
+            final int dir; // the move from the parent
+            final long id = nextId++;
+
+            final Node[] children = new Node[4]; // by direction code
+            int childCount = 0;
+            int unexplored;  // moves whose child was never generated
+            int forgotten = 0; // moves whose child was forgotten, with its last f(n) in forgottenF
+            final int[] forgottenF = new int[4];
+
+            Node(long state, int g, int h, int f, Node parent, int dir, int moves) {
+                this.state = state;
+                this.g = g;
+                this.h = h;
+                this.f = f;
+                this.parent = parent;
+                this.dir = dir;
+                this.unexplored = moves;
+            }
+        }
+    }
+
+    /**
+     * searchParallelAStar() solves the puzzle using hash-distributed parallel A* (HDA*). Each thread owns the states
+     * whose hash maps to it and keeps its own open and closed lists for them. Children are sent to their owner in
+     * batches over lock-free queues. A thread that polls the goal state records its path cost as the incumbent, and
+     * entries with f(n) at or above the incumbent are dropped. Each thread also publishes the lowest f(n) it may hold,
+     * batches in flight are counted by their lowest f(n), and a thread only expands an entry when nothing lower is
+     * open anywhere, so the threads work through the f(n) layers together, as A* does one entry at a time, instead of
+     * running ahead on their own minima. The search ends once no thread has work left and no batch is in flight, at
+     * which point the incumbent is optimal. States may be expanded more than once when a cheaper path arrives late, so
+     * nodes counts every expansion. Boards are limited to 16 cells, whose keys are plain packed longs that threads can
+     * share.
+     * @param h is the heuristic function
+     * @return the (optimal) solution represented as a list of moves
+     */
+    private List<String> searchParallelAStar(String h) {
+        SearchStats stats = this.stats;
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        if (!board.fitsInLong()) {
+            this.out.println("Error: solve PA* is only available for boards of up to 16 cells");
+            stats.outcome = SearchStats.UNSUPPORTED;
+            return new ArrayList<>();
+        }
+
+        StateSpace space = StateSpace.create(this.board);
+        ParallelAStar search = new ParallelAStar(space, h, this.numThreads, this.maxNodes);
+        long origState = space.key(this.tiles);
+        long goalState = space.key(this.board.goalTiles());
+
+        stats.rootH = heuristic(h, this.tiles); // also loads pattern databases before the threads start
+        boolean completed = search.run(origState, goalState);
+        for (ParallelAStar.Worker worker : search.workers) {
+            stats.expanded += worker.numExpanded;
+            stats.generated += worker.generated;
+            stats.duplicates += worker.duplicates;
+            stats.reopened += worker.reopened;
+            stats.peakFrontier += worker.peakFrontier;
+            stats.peakClosed += worker.nodes.size();
+            if (stats.allocatedBytes >= 0) {
+                stats.allocatedBytes = worker.allocatedBytes < 0 ? -1 : stats.allocatedBytes + worker.allocatedBytes;
+            }
+        }
+        this.numNodes = (int) Math.min(search.expanded.get(), Integer.MAX_VALUE);
+        if (!completed && this.cancellation.reason() != null) return stopped();
+        if (!completed) {
+            return maxNodesReached();
+        }
+        if (search.incumbent.get() == Integer.MAX_VALUE) return noSolution();
+
+        // each state's incoming move is kept by the thread that owns it
+        List<String> solution = new ArrayList<>();
+        long state = goalState;
+        while (state != origState) {
+            int dir = search.workers[search.owner(state)].nodes.move(state);
+            solution.add(Move.of(dir).label);
+            int blank = space.blank(state);
+            state = space.child(state, blank, board.target(blank, dir ^ 1));
+        }
+        Collections.reverse(solution);
+
+        StringBuilder perThread = new StringBuilder("Nodes per thread:");
+        for (ParallelAStar.Worker worker : search.workers) {
+            perThread.append(' ').append(worker.numExpanded);
+        }
+        this.out.println(perThread);
+        return solution;
+    }
+
+    /**
+     * ParallelAStar holds the shared state of searchParallelAStar() and its worker threads.
+     *
+     * Termination uses one counter, pending: every batch sent and not yet taken in counts 1, and every worker that is
+     * not idle counts 1. A worker sends its batches before it goes idle and counts itself back in before it takes a
+     * batch, so pending only reaches 0 when no work is left anywhere, and then stays there.
+     */
+    private final class ParallelAStar {
+        // children sent to one owner in a single message
+        static final int BATCH_SIZE = 64;
+
+        // f(n) values counted apart in inFlight; higher ones share the last count
+        static final int F_LIMIT = 1 << 10;
+
+        final StateSpace space;
+        final String h;
+        final int maxNodes;
+        final Worker[] workers;
+        final AtomicInteger incumbent = new AtomicInteger(Integer.MAX_VALUE);
+        final AtomicLong pending = new AtomicLong();
+        final AtomicLong expanded = new AtomicLong();
+        final AtomicIntegerArray inFlight = new AtomicIntegerArray(F_LIMIT); // batches sent, by their lowest f(n)
+        volatile boolean aborted = false;
+
+        ParallelAStar(StateSpace space, String h, int numThreads, int maxNodes) {
+            this.space = space;
+            this.h = h;
+            this.maxNodes = maxNodes;
+            this.workers = new Worker[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                workers[i] = new Worker();
+            }
+        }
+
+        /**
+         * owner() gives the thread that owns a state (the MurmurHash3 finalizer of the key)
+         */
+        int owner(long state) {
+            long mixed = state;
+            mixed = (mixed ^ (mixed >>> 33)) * 0xff51afd7ed558ccdL;
+            mixed = (mixed ^ (mixed >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            mixed ^= mixed >>> 33;
+            return (int) Long.remainderUnsigned(mixed, workers.length);
+        }
+
+        /**
+         * lowerElsewhere() checks if a worker other than one, or a batch in flight, may hold an entry below an f(n)
+         */
+        boolean lowerElsewhere(Worker self, int f) {
+            for (Worker worker : workers) {
+                if (worker != self && worker.lowestF < f) return true;
+            }
+            for (int i = Math.min(f, F_LIMIT) - 1; i >= 0; i--) {
+                if (inFlight.get(i) > 0) return true;
+            }
+            return false;
+        }
+
+        /**
+         * run() starts the workers on the start state and waits for them
+         * @return false if the search stopped at the maxnodes limit
+         */
+        boolean run(long origState, long goalState) {
+            pending.set(workers.length + 1);
+            space.tiles(origState, workers[0].tiles);
+            long startH = heuristic(h, workers[0].tiles, workers[0].positions);
+            inFlight.incrementAndGet((int) Math.min(startH, F_LIMIT - 1));
+            workers[owner(origState)].inbox.add(new long[]{origState, startH << 16});
+
+            Thread[] threads = new Thread[workers.length];
+            for (int i = 0; i < workers.length; i++) {
+                Worker worker = workers[i];
+                threads[i] = new Thread(() -> worker.search(goalState), "PA*-" + i);
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    aborted = true;
+                }
+            }
+            return !aborted;
+        }
+
+        /**
+         * Worker is one search thread with its own part of the state space
+         */
+        final class Worker {
+            // batches of (state, g(n) | move << 8 | h(n) << 16) pairs sent by other workers (and itself)
+            final Queue<long[]> inbox = new ConcurrentLinkedQueue<>();
+            final NodeMap nodes = space.newNodeMap();
+            final Frontier frontier = new BucketFrontier();
+            final int[] tiles = new int[board.cells];
+            final int[] positions = new int[board.cells];
+            final boolean incremental = isIncremental(h);
+            long numExpanded = 0;
+
+            // at most the f(n) of this worker's open entries, or Integer.MAX_VALUE while it has none
+            volatile int lowestF = Integer.MAX_VALUE;
+
+            // statistics, added up over the workers when the search ends (see SearchStats)
+            long generated = 0;
+            long duplicates = 0;
+            long reopened = 0;
+            long peakFrontier = 0;
+            long allocatedBytes = 0;
+
+            // children waiting to be sent, per owner, and their lowest f(n)
+            long[][] outgoing;
+            int[] outgoingSize;
+            int[] outgoingF;
+
+            /**
+             * search() is the worker loop: take in batches, expand the best open entry, send children to their owners
+             */
+            void search(long goalState) {
+                long startBytes = allocatedBytes();
+                try {
+                    searchLoop(goalState);
+                } finally {
+                    allocatedBytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+                }
+            }
+
+            void searchLoop(long goalState) {
+                outgoing = new long[workers.length][2 * BATCH_SIZE];
+                outgoingSize = new int[workers.length];
+                outgoingF = new int[workers.length];
+                Arrays.fill(outgoingF, Integer.MAX_VALUE);
+                boolean idle = false;
+                while (!aborted) {
+                    long[] batch = inbox.poll();
+                    if (batch != null) {
+                        if (idle) {
+                            pending.incrementAndGet(); // count this worker back in before taking the batch
+                            idle = false;
+                        }
+                        receive(batch);
+                        pending.decrementAndGet();
+                        continue;
+                    }
+
+                    if (!frontier.isEmpty()) {
+                        expandNext(goalState);
+                        continue;
+                    }
+
+                    if (!idle) {
+                        flush();
+                        idle = true;
+                        pending.decrementAndGet();
+                    }
+                    lowestF = Integer.MAX_VALUE;
+                    if (pending.get() == 0) return;
+                    Thread.yield();
+                }
+            }
+
+            /**
+             * receive() adds the states of a batch that were not reached more cheaply before to the open list. They
+             * are published in lowestF before the batch stops counting as in flight.
+             */
+            void receive(long[] batch) {
+                int best = incumbent.get();
+                int lowest = lowestF;
+                int batchF = Integer.MAX_VALUE;
+                for (int i = 0; i < batch.length; i += 2) {
+                    long state = batch[i];
+                    int cost = (int) batch[i + 1] & 0xFF;
+                    int f = cost + (int) (batch[i + 1] >>> 16);
+                    batchF = Math.min(batchF, f);
+                    int known = nodes.cost(state);
+                    if (known != NodeMap.UNSEEN && known <= cost) {
+                        duplicates++;
+                        continue;
+                    }
+                    if (f >= best) continue;
+                    nodes.record(state, cost, (int) (batch[i + 1] >>> 8) & 0x3);
+                    frontier.add(state, cost, f);
+                    lowest = Math.min(lowest, f);
+                }
+                lowestF = lowest;
+                inFlight.decrementAndGet(Math.min(batchF, F_LIMIT - 1));
+                if (frontier.size() > peakFrontier) peakFrontier = frontier.size();
+            }
+
+            /**
+             * expandNext() polls the best open entry and generates its children. The entry is put back instead while
+             * children of this worker that are not sent yet, or entries elsewhere, have a lower f(n).
+             */
+            void expandNext(long goalState) {
+                long state = frontier.poll();
+                int pathCost = frontier.polledCost();
+                int f = frontier.polledPriority();
+                if (nodes.cost(state) < pathCost || f >= incumbent.get()) return;
+                if (lowestOutgoingF() < f) {
+                    frontier.add(state, pathCost, f);
+                    flush();
+                    return;
+                }
+                lowestF = f;
+                if (lowerElsewhere(this, f)) {
+                    frontier.add(state, pathCost, f);
+                    Thread.yield();
+                    return;
+                }
+                if (state == goalState) {
+                    incumbent.accumulateAndGet(pathCost, Math::min);
+                    return;
+                }
+                if (expanded.incrementAndGet() > maxNodes || cancellation.shouldStop()) {
+                    aborted = true;
+                    return;
+                }
+                numExpanded++;
+                if (!nodes.mark(state)) reopened++;
+                if (pathCost + 1 >= MAX_DEPTH) return;
+
+                // children carry their h(n), worked out here from this state's
+                int hValue = frontier.polledPriority() - pathCost;
+                int blank = space.blank(state);
+                space.tiles(state, tiles);
+                for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                    int dir = Integer.numberOfTrailingZeros(moves);
+                    int target = board.target(blank, dir);
+                    long nextState = space.child(state, blank, target);
+                    int nextH;
+                    if (incremental) {
+                        nextH = hValue + heuristicDelta(h, tiles, tiles[target], blank, target);
+                    } else {
+                        tiles[blank] = tiles[target];
+                        tiles[target] = 0;
+                        nextH = heuristic(h, tiles, positions);
+                        tiles[target] = tiles[blank];
+                        tiles[blank] = 0;
+                    }
+                    send(nextState, (pathCost + 1) | ((long) dir << 8) | ((long) nextH << 16), pathCost + 1 + nextH);
+                    generated++;
+                }
+
+                // keep batches moving while this worker stays busy
+                if (frontier.isEmpty() || (numExpanded & 0xFF) == 0) flush();
+            }
+
+            /**
+             * send() queues a child for its owner, sending the owner's batch once it is full
+             */
+            void send(long state, long info, int f) {
+                int to = owner(state);
+                long[] buffer = outgoing[to];
+                buffer[outgoingSize[to]++] = state;
+                buffer[outgoingSize[to]++] = info;
+                outgoingF[to] = Math.min(outgoingF[to], f);
+                if (outgoingSize[to] == buffer.length) flush(to);
+            }
+
+            /**
+             * lowestOutgoingF() gives the lowest f(n) of the children waiting to be sent
+             */
+            int lowestOutgoingF() {
+                int lowest = Integer.MAX_VALUE;
+                for (int f : outgoingF) {
+                    lowest = Math.min(lowest, f);
+                }
+                return lowest;
+            }
+
+            /**
+             * flush() sends every partly filled batch
+             */
+            void flush() {
+                for (int to = 0; to < workers.length; to++) {
+                    if (outgoingSize[to] > 0) flush(to);
+                }
+            }
+
+            void flush(int to) {
+                pending.incrementAndGet();
+                inFlight.incrementAndGet(Math.min(outgoingF[to], F_LIMIT - 1));
+                workers[to].inbox.add(Arrays.copyOf(outgoing[to], outgoingSize[to]));
+                outgoingSize[to] = 0;
+                outgoingF[to] = Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * searchOracle() solves the 8 puzzle by looking up exact distances to the goal state in a precomputed table and
+     * always moving to a neighbor that is one move closer. No search is needed, so maxnodes does not apply. Only
+     * 3x3 boards have a table.
+     * @return the (optimal) solution represented as a list of moves
+     */
+    private List<String> searchOracle() {
+        SearchStats stats = this.stats;
+        if (board.width != 3) {
+            this.out.println("Error: solve ORACLE is only available for 3x3 boards");
+            stats.outcome = SearchStats.UNSUPPORTED;
+            return new ArrayList<>();
+        }
+        if (!board.isSolvable(this.tiles)) return unsolvable();
+        DistanceOracle oracle = loadOracle();
+
+        long state = board.pack(this.tiles);
+        int distance = oracle.distance(state);
+        int lookups = 1;
+        if (distance == DistanceOracle.UNREACHABLE) {
+            this.numNodes = lookups;
+            return noSolution();
+        }
+        stats.rootH = distance; // the exact distance is a perfect heuristic
+
+        List<String> solution = new ArrayList<>();
+        while (distance > 0) {
+            int blank = board.blankOf(state);
+            for (int moves = board.legalMoves(blank); moves != 0; moves &= moves - 1) {
+                int dir = Integer.numberOfTrailingZeros(moves);
+                int target = board.target(blank, dir);
+                long nextState = Board.slide(state, blank, target);
+                lookups++;
+                if (oracle.distance(nextState) == distance - 1) {
+                    stats.expanded++;
+                    solution.add(Move.of(dir).label);
+                    state = nextState;
+                    distance--;
+                    break;
+                }
+            }
+        }
+
+        stats.generated = lookups - 1;
+        this.numNodes = lookups;
+        return solution;
+    }
+
+    /**
+     * heuristic() applies and calculates the correct heuristic function value given string indicator
+     * @param whichH indicates which heuristic function to use
+     * @param state gives the tile on each cell
+     * @return the value corresponding to specified heuristic
+     */
+    private int heuristic(String whichH, int[] state) {
+        return heuristic(whichH, state, this.tilePositions);
+    }
+
+    /**
+     * heuristic() is the same as above with caller-provided scratch space, so search threads can share the board
+     * @param positions is scratch space for pattern database lookups, one entry per cell
+     */
+    private int heuristic(String whichH, int[] state, int[] positions) {
+        if (whichH.equals("h1")) return numMisplacedTiles(state);
+        if (whichH.equals("h2")) return totalManHattanDist(state);
+        if (whichH.equals("h3")) return totalManHattanDist(state) + 2 * linearConflicts(state);
+        if (whichH.equals("pdb")) return patternDatabaseCost(state, positions);
+
+        return 0;
+    }
+
+    /**
+     * isIncremental() checks if a heuristic can be updated move by move with heuristicDelta()
+     * @param whichH is the heuristic function
+     * @return true for h1, h2 and h3
+     */
+    private static boolean isIncremental(String whichH) {
+        return whichH.equals("h1") || whichH.equals("h2") || whichH.equals("h3");
+    }
+
+    /**
+     * heuristicDelta() gives the change in a heuristic value when the blank moves, without rescanning the board. h1
+     * and h2 only change by the moved tile's own contribution, which Board keeps in [tile][from][to] tables. The
+     * linear conflicts of h3 can only change in the two lines the tile moves between: the two columns for a
+     * horizontal move (the order within the row stays the same) and the two rows for a vertical one.
+     * @param whichH is h1, h2 or h3
+     * @param state gives the tile on each cell before the move; only read (and restored) for h3
+     * @param tile is the tile on the target cell
+     * @param blank is the blank's cell
+     * @param target is the cell the blank moves to
+     * @return the heuristic value after the move minus the value before it
+     */
+    private int heuristicDelta(String whichH, int[] state, int tile, int blank, int target) {
+        if (whichH.equals("h1")) return board.misplacedDelta(tile, target, blank);
+        int delta = board.manhattanDelta(tile, target, blank);
+        if (!whichH.equals("h3")) return delta;
+
+        boolean vertical = Math.abs(target - blank) == board.width;
+        int fromLine = vertical ? target / board.width : target % board.width;
+        int toLine = vertical ? blank / board.width : blank % board.width;
+        int before = lineConflicts(state, fromLine, vertical) + lineConflicts(state, toLine, vertical);
+        state[blank] = tile;
+        state[target] = 0;
+        int after = lineConflicts(state, fromLine, vertical) + lineConflicts(state, toLine, vertical);
+        state[target] = tile;
+        state[blank] = 0;
+        return delta + 2 * (after - before);
+    }
+
+    /**
+     * isHeuristic() checks if a solve argument names a heuristic function
+     * @param whichH is the argument
+     * @return true for h1, h2, h3 and pdb
+     */
+    static boolean isHeuristic(String whichH) {
+        return whichH.equals("h1") || whichH.equals("h2") || whichH.equals("h3") || whichH.equals("pdb");
+    }
+
+    /**
+     * Calculates the heuristic function value for h1 which is the number of misplaced tiles
+     * @param state is the given state of the puzzle
+     * @return number of misplaces tiles for provided state
+     */
+    private int numMisplacedTiles(int[] state) {
+        int counter = 0;
+        for (int cell = 0; cell < state.length; cell++) {
+            counter += tileCost(state[cell], cell, false);
+        }
+        return counter;
+    }
+
+    /**
+     * Calculates the heuristic function value for h2 which is the sum of distances of the tiles from their
+     * goal positions
+     * @param state is the given state of the puzzle
+     * @return the sum of manhattan distances for each tile to their goal position
+     */
+    private int totalManHattanDist(int[] state) {
+        int totalSum = 0;
+        for (int cell = 0; cell < state.length; cell++) {
+            totalSum += tileCost(state[cell], cell, true);
+        }
+        return totalSum;
+    }
+
+    /**
+     * Calculates the linear conflicts used by h3 (Manhattan distance + 2 * linear conflicts). Tiles that are in their
+     * goal row (or column) but in the wrong order relative to each other cannot pass one another there, so in each
+     * row and column, all but the longest correctly ordered subsequence of such tiles must step out of the line and
+     * back, costing at least 2 extra moves each.
+     * @param state is the given state of the puzzle
+     * @return the number of tiles that must leave their goal row or column
+     */
+    private int linearConflicts(int[] state) {
+        int conflicts = 0;
+        for (int line = 0; line < board.width; line++) {
+            conflicts += lineConflicts(state, line, true) + lineConflicts(state, line, false);
+        }
+        return conflicts;
+    }
+
+    /**
+     * lineConflicts() is a helper method for linearConflicts() and heuristicDelta() that counts the linear conflicts
+     * in one row or column
+     * @param state is the given state of the puzzle
+     * @param line is the row or column index
+     * @param row is true for a row, false for a column
+     * @return the number of tiles that must leave this line
+     */
+    private int lineConflicts(int[] state, int line, boolean row) {
+        int width = board.width;
+        // goal columns of the tiles in this row that belong to it (or goal rows for this column), 4 bits each
+        int seq = 0, len = 0;
+        for (int k = 0; k < width; k++) {
+            if (row) {
+                int tile = state[width * line + k];
+                if (tile != 0 && tile / width == line) seq |= (tile % width) << (4 * len++);
+            } else {
+                int tile = state[width * k + line];
+                if (tile != 0 && tile % width == line) seq |= (tile / width) << (4 * len++);
+            }
+        }
+        return len - longestIncreasing(seq, len);
+    }
+
+    /**
+     * longestIncreasing() is a helper method for linearConflicts() that finds the length of the longest increasing
+     * subsequence of a short sequence
+     * @param seq holds the values, 4 bits each
+     * @param len is the number of values
+     * @return the length of the longest increasing subsequence
+     */
+    private static int longestIncreasing(int seq, int len) {
+        int lengths = 0; // longest increasing subsequence ending at each value, 4 bits each
+        int best = 0;
+        for (int i = 0; i < len; i++) {
+            int value = (seq >>> (4 * i)) & 0xF;
+            int longest = 1;
+            for (int j = 0; j < i; j++) {
+                if (((seq >>> (4 * j)) & 0xF) < value) {
+                    longest = Math.max(longest, ((lengths >>> (4 * j)) & 0xF) + 1);
+                }
+            }
+            lengths |= longest << (4 * i);
+            best = Math.max(best, longest);
+        }
+        return best;
+    }
+
+    /**
+     * Calculates the heuristic function value for pdb, the sum of the disjoint additive pattern database costs. The
+     * databases for a board size are built the first time they are needed and cached to disk next to the distance
+     * oracle.
+     * @param state is the given state of the puzzle
+     * @param positions is scratch space for the cell of each tile
+     * @return the sum of the pattern database costs for provided state
+     */
+    private int patternDatabaseCost(int[] state, int[] positions) {
+        PatternDatabase[] databases = this.databasesByWidth[board.width];
+        if (databases == null) {
+            databases = loadPatternDatabases(board.width);
+            this.databasesByWidth[board.width] = databases;
+        }
+        for (int cell = 0; cell < state.length; cell++) {
+            positions[state[cell]] = cell;
+        }
+        int total = 0;
+        for (PatternDatabase database : databases) {
+            total += database.cost(positions);
+        }
+        return total;
+    }
+
+    /**
+     * loadOracle() loads the distance table for 'solve ORACLE' the first time it is needed. It is synchronized so
+     * boards solving in parallel (see batchfile()) build and save the table only once.
+     * @return the shared distance table
+     */
+    private static synchronized DistanceOracle loadOracle() {
+        if (oracle == null) oracle = DistanceOracle.load(ORACLE_FILE);
+        return oracle;
+    }
+
+    /**
+     * loadPatternDatabases() builds or reads the pattern databases for a board width the first time they are needed,
+     * once for all boards like loadOracle()
+     * @param width is the board width
+     * @return the shared databases
+     */
+    private static synchronized PatternDatabase[] loadPatternDatabases(int width) {
+        if (patternDatabases[width] == null) {
+            int[][] groups = PatternDatabase.defaultPartition(width);
+            PatternDatabase[] databases = new PatternDatabase[groups.length];
+            for (int g = 0; g < groups.length; g++) {
+                StringBuilder name = new StringBuilder("eightpuzzle-pdb" + width + "x" + width);
+                for (int tile : groups[g]) name.append('-').append(tile);
+                Path cacheFile = PDB_CACHE ? Paths.get(name.append(".bin").toString()) : null;
+                databases[g] = PatternDatabase.load(width, groups[g], cacheFile);
+            }
+            patternDatabases[width] = databases;
+        }
+        return patternDatabases[width];
+    }
+
+    /**
+     * tileCost() is a helper method for the heuristics that gives one tile's contribution. The blank tile is not
+     * counted, which keeps both heuristics admissible (a move only ever brings one tile one step closer).
+     * @param tile is the tile
+     * @param cell is the cell the tile is on
+     * @param manhattan is true for h2 (distance to the goal cell), false for h1 (1 if misplaced)
+     * @return the tile's contribution to the heuristic value
+     */
+    private int tileCost(int tile, int cell, boolean manhattan) {
+        if (tile == 0) return 0;
+        if (manhattan) return board.manhattan(tile, cell);
+        return tile != cell ? 1 : 0;
+    }
+
+    /**
+     * traceParents() is a helper method that walks back from the end state by undoing the recorded incoming move of
+     * each state, and returns list of moves that collectively represent the solution.
+     * @param space is the state space of the search
+     * @param nodes holds the move each state was reached with
+     * @param origState is the state the search started from
+     * @param endState is the state to trace back from, normally the goal state
+     * @return the solution represented as a list of moves
+     */
+    private List<String> traceParents(StateSpace space, NodeMap nodes, long origState, long endState) {
+        List<String> solution = new ArrayList<>();
+        long state = endState;
+
+        while (state != origState) {
+            int dir = nodes.move(state);
+            solution.add(Move.of(dir).label);
+            int blank = space.blank(state);
+            state = space.child(state, blank, board.target(blank, dir ^ 1)); // opposite moves differ in bit 0
+        }
+
+        Collections.reverse(solution);
+        return solution;
+    }
+
+    /**
+     * unsolvable() is a helper method for the solvers when the board fails the solvability check, so no search is run
+     * @return an empty solution
+     */
+    private List<String> unsolvable() {
+        this.out.println("Error: unsolvable puzzle state: inversion parity does not match the goal state");
+        this.stats.outcome = SearchStats.UNSOLVABLE;
+        this.numNodes = 0;
+        return new ArrayList<>();
+    }
+
+    /**
+     * stopped() is a helper method for the solvers when the caller cancels the solve or its deadline passes
+     * @return an empty solution
+     */
+    private List<String> stopped() {
+        String reason = this.cancellation.reason();
+        if (reason.equals(SearchStats.CANCELLED)) {
+            this.out.println("Error: solve cancelled");
+        } else {
+            this.out.println("Error: solve deadline reached");
+        }
+        this.stats.outcome = reason;
+        return new ArrayList<>();
+    }
+
+    /**
+     * maxNodesReached() is a helper method for the solvers when the search is cut off by the maxnodes limit
+     * @return an empty solution
+     */
+    private List<String> maxNodesReached() {
+        this.out.println("Error: maxnodes limit (" + this.maxNodes + ") reached");
+        this.stats.outcome = SearchStats.MAXNODES;
+        return new ArrayList<>();
+    }
+
+    /**
+     * measure() runs one solver, collecting its SearchStats: the solver fills in the search counters through
+     * this.stats, and the wall time and bytes allocated by this thread are added around it. The finished statistics
+     * go into the SolveResult and are committed as a SolveEvent for flight recordings.
+     * @param algorithm names the solve, e.g. "A* h2"
+     * @param search is the solver
+     * @return the solver's solution
+     */
+    private List<String> measure(String algorithm, Supplier<List<String>> search) {
+        SearchStats stats = new SearchStats(algorithm);
+        this.stats = stats;
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+
+        SolutionCache cache = cacheFor(algorithm);
+        String key = cacheKey(algorithm);
+        List<String> solution = null;
+        if (cache != null) {
+            solution = cache.lookup(key, this.board.pack(this.tiles));
+            // IDDFS keys leave out the depth limit, so a path found under a deeper limit is a miss here
+            if (solution != null && algorithm.equals("IDDFS") && solution.size() >= Math.min(depthLimit, MAX_DEPTH)) {
+                solution = null;
+            }
+            if (solution != null) {
+                stats.outcome = SearchStats.CACHED;
+                this.numNodes = 0;
+            }
+        }
+        if (solution == null) solution = search.get();
+        if (cache != null && !solution.isEmpty()) cache.record(key, this.board, this.tiles, solution);
+
+        stats.wallNanos = System.nanoTime() - startTime;
+        if (startBytes < 0 || stats.allocatedBytes < 0) {
+            stats.allocatedBytes = -1;
+        } else {
+            stats.allocatedBytes += allocatedBytes() - startBytes;
+        }
+        stats.solutionLength = solution.size();
+        event.end();
+        event.commit(stats);
+        return solution;
+    }
+
+    /**
+     * cacheFor() returns the solution cache if it applies to a solve: the run was given one, the board packs into a
+     * long, and the solver returns optimal solutions (all but DFS, WA* and ARA*), so the rest of a cached path is
+     * optimal too. The goal and unsolvable states are left to the solver.
+     * @param algorithm names the solve
+     * @return the cache, or null
+     */
+    private SolutionCache cacheFor(String algorithm) {
+        if (this.cache == null || !this.board.fitsInLong() || algorithm.equals("DFS")) return null;
+        if (algorithm.startsWith("WA* ") || algorithm.startsWith("ARA* ")) return null;
+        if (Arrays.equals(this.tiles, this.board.goalTiles()) || !this.board.isSolvable(this.tiles)) return null;
+        return this.cache;
+    }
+
+    /**
+     * cacheKey() names a solve in the solution cache. The maxnodes limit is part of the name, so a solution is only
+     * reused by solves that were allowed the same number of nodes; a hit never answers a solve that would have
+     * stopped at its limit.
+     * @param algorithm names the solve
+     * @return the cache key
+     */
+    private String cacheKey(String algorithm) {
+        return algorithm + " maxnodes=" + this.maxNodes;
+    }
+
+    /**
+     * gcd() returns the greatest common divisor of two positive numbers, to reduce weight fractions
+     */
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * allocatedBytes() returns the bytes allocated so far by the current thread
+     * @return the byte count, or -1 if the JVM does not track it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        return allocations.isThreadAllocatedMemoryEnabled() ? allocations.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * noSolution() is a helper method for the solvers when the frontier runs out without reaching the goal state
+     * @return an empty solution
+     */
+    private List<String> noSolution() {
+        this.out.println("Error: no solution found");
+        this.stats.outcome = SearchStats.NO_SOLUTION;
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,78 @@
+import java.io.PrintStream;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Statistics of one solve, filled in by the solver while it searches (see EightPuzzle.lastStats())
+ *
+ * Generated counts every child produced by a move; expanded counts every state whose moves were tried, including
+ * re-expansions. Duplicates are children dropped because the state was already reached at least as cheaply, and
+ * re-openings are states expanded again after a cheaper path to them turned up (for SMA*, nodes regenerated after
+ * being forgotten). Solvers without an open list or closed set (IDA*, ORACLE) report their path length and 0 for them.
+ */
+public final class SearchStats {
+    // how the solve ended
+    public static final String SOLVED = "solved";
+    public static final String CACHED = "solved from the solution cache";
+    public static final String NO_SOLUTION = "no solution";
+    public static final String MAXNODES = "maxnodes limit reached";
+    public static final String UNSOLVABLE = "unsolvable";
+    public static final String UNSUPPORTED = "not available for this board";
+    public static final String CANCELLED = "cancelled";
+    public static final String DEADLINE = "deadline reached";
+    public static final String FILE_ERROR = "file error";
+
+    public final String algorithm;
+    public String outcome = SOLVED;
+    public int solutionLength = 0;
+
+    public long generated = 0;
+    public long expanded = 0;
+    public long duplicates = 0;
+    public long reopened = 0;
+    public long peakFrontier = 0;
+    public long peakClosed = 0;
+
+    public long wallNanos = 0;
+    public long allocatedBytes = 0; // -1 if the JVM cannot measure it
+
+    // heuristic value of the start state, or -1 for uninformed searches
+    public int rootH = -1;
+
+    public SearchStats(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * frontierSize() records the current open list size, keeping the peak
+     */
+    public void frontierSize(long size) {
+        if (size > peakFrontier) peakFrontier = size;
+    }
+
+    /**
+     * closedSize() records the current closed set size, keeping the peak
+     */
+    public void closedSize(long size) {
+        if (size > peakClosed) peakClosed = size;
+    }
+
+    /**
+     * print() writes the statistics for the 'stats' command
+     * @param out is where to write them
+     */
+    public void print(PrintStream out) {
+        out.println("Search statistics: solve " + algorithm);
+        boolean solved = outcome.equals(SOLVED) || outcome.equals(CACHED);
+        out.println("Outcome: " + outcome + (solved ? " (" + solutionLength + " moves)" : ""));
+        out.println("Nodes generated: " + generated);
+        out.println("Nodes expanded: " + expanded);
+        out.println("Duplicates pruned: " + duplicates);
+        out.println("Re-openings: " + reopened);
+        out.println("Peak frontier size: " + peakFrontier);
+        out.println("Peak closed set size: " + peakClosed);
+        out.println("Wall time: " + String.format("%.3f", wallNanos / 1e6) + " ms");
+        out.println("Allocated bytes: " + (allocatedBytes < 0 ? "n/a" : String.valueOf(allocatedBytes)));
+        out.println("Root heuristic: " + (rootH < 0 ? "n/a" : String.valueOf(rootH)));
+    }
+}
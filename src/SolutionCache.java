@@ -0,0 +1,183 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Bounded LRU cache of optimal solutions, keyed by solver (e.g. "A* h2") and packed board (see Board.pack()), for
+ * boards of up to 16 cells
+ *
+ * Every state on an optimal path has the rest of that path as an optimal solution of its own, so one solve adds an
+ * entry for each state on its path. The entries of a path share one array of its direction codes and only differ in
+ * where their suffix starts. The size is bounded by a memory budget, estimated at ENTRY_BYTES per entry; the least
+ * recently used entries are evicted first.
+ */
+public final class SolutionCache {
+    // default memory budget
+    public static final long DEFAULT_BUDGET = 16L << 20;
+
+    // rough heap cost of one entry: the map entry, its key and suffix, and a share of the path array
+    static final int ENTRY_BYTES = 128;
+
+    private long budget;
+    private final LinkedHashMap<Key, Suffix> entries = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Suffix> eldest) {
+            return size() > maxEntries();
+        }
+    };
+
+    // lookups of start states that were answered from the cache or not, and frontier states whose cached suffix a
+    // search spliced into its solution
+    private long hits = 0;
+    private long misses = 0;
+    private long splices = 0;
+
+    public SolutionCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * lookup() answers a solve from the cache, counting a hit or a miss
+     * @param solver names the solver and heuristic
+     * @param state is the packed start state
+     * @return the cached solution, or null if there is none
+     */
+    public List<String> lookup(String solver, long state) {
+        Suffix suffix = entries.get(new Key(solver, state));
+        if (suffix == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return suffix.moves();
+    }
+
+    /**
+     * remaining() gives the length of the cached solution of a state, for searches that check their frontier against
+     * the cache. It does not count as a lookup.
+     * @param solver names the solver and heuristic
+     * @param state is the packed state
+     * @return the number of moves to the goal, or -1 if the state is not cached
+     */
+    public int remaining(String solver, long state) {
+        Suffix suffix = entries.get(new Key(solver, state));
+        return suffix == null ? -1 : suffix.length();
+    }
+
+    /**
+     * splice() returns the cached solution of a frontier state that a search joins onto its own path
+     * @param solver names the solver and heuristic
+     * @param state is the packed state, which must be cached
+     * @return the moves from the state to the goal
+     */
+    public List<String> splice(String solver, long state) {
+        splices++;
+        return entries.get(new Key(solver, state)).moves();
+    }
+
+    /**
+     * record() adds every state on an optimal solution path, with the rest of the path as its solution
+     * @param solver names the solver and heuristic
+     * @param board is the board geometry
+     * @param tiles is the start state
+     * @param solution is the moves of the blank from the start state to the goal
+     */
+    public void record(String solver, Board board, int[] tiles, List<String> solution) {
+        byte[] path = new byte[solution.size()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = (byte) Move.parse(solution.get(i)).code();
+        }
+        long state = board.pack(tiles);
+        for (int i = 0; i < path.length; i++) {
+            entries.putIfAbsent(new Key(solver, state), new Suffix(path, i));
+            int blank = board.blankOf(state);
+            state = Board.slide(state, blank, board.target(blank, path[i]));
+        }
+    }
+
+    /**
+     * setBudget() changes the memory budget, evicting the least recently used entries that no longer fit
+     * @param budget is the budget in bytes
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        Iterator<Key> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * clear() removes all entries and resets the counters
+     */
+    public void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        splices = 0;
+    }
+
+    /**
+     * print() writes the cache counters for the 'cache' command
+     * @param out is where to write them
+     */
+    public void print(PrintStream out) {
+        out.println("Solution cache: " + hits + " hits, " + misses + " misses, " + splices + " splices, "
+                + entries.size() + " entries (budget " + (budget >> 10) + " KB)");
+    }
+
+    private long maxEntries() {
+        return budget / ENTRY_BYTES;
+    }
+
+    private static final class Key {
+        final String solver;
+        final long state;
+
+        Key(String solver, long state) {
+            this.solver = solver;
+            this.state = state;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return state == key.state && solver.equals(key.solver);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * solver.hashCode() + Long.hashCode(state * 0x9E3779B97F4A7C15L);
+        }
+    }
+
+    // the moves path[offset..] of a shared solution path
+    private static final class Suffix {
+        final byte[] path;
+        final int offset;
+
+        Suffix(byte[] path, int offset) {
+            this.path = path;
+            this.offset = offset;
+        }
+
+        int length() {
+            return path.length - offset;
+        }
+
+        List<String> moves() {
+            List<String> moves = new ArrayList<>(length());
+            for (int i = offset; i < path.length; i++) {
+                moves.add(Move.of(path[i]).label);
+            }
+            return moves;
+        }
+    }
+}
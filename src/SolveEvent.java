@@ -0,0 +1,75 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Java Flight Recorder event for one solve, carrying its SearchStats
+ *
+ * The event is only recorded while a flight recording with it enabled is running, e.g. with
+ * -XX:StartFlightRecording; otherwise committing it costs next to nothing.
+ */
+@Name("eightpuzzle.Solve")
+@Label("Puzzle Solve")
+@Category("Eight Puzzle")
+@Description("One solve command and its search statistics")
+@StackTrace(false)
+final class SolveEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Solution Length")
+    int solutionLength;
+
+    @Label("Nodes Generated")
+    long generated;
+
+    @Label("Nodes Expanded")
+    long expanded;
+
+    @Label("Duplicates Pruned")
+    long duplicates;
+
+    @Label("Re-openings")
+    long reopened;
+
+    @Label("Peak Frontier Size")
+    long peakFrontier;
+
+    @Label("Peak Closed Set Size")
+    long peakClosed;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Root Heuristic")
+    int rootH;
+
+    /**
+     * commit() records the event with the statistics of the solve it timed, if a recording wants it
+     * @param stats are the finished statistics
+     */
+    void commit(SearchStats stats) {
+        if (!shouldCommit()) return;
+        algorithm = stats.algorithm;
+        outcome = stats.outcome;
+        solutionLength = stats.solutionLength;
+        generated = stats.generated;
+        expanded = stats.expanded;
+        duplicates = stats.duplicates;
+        reopened = stats.reopened;
+        peakFrontier = stats.peakFrontier;
+        peakClosed = stats.peakClosed;
+        allocatedBytes = stats.allocatedBytes;
+        rootH = stats.rootH;
+        commit();
+    }
+}
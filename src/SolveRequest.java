@@ -0,0 +1,149 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Immutable settings of one solve for SolverEngine: the algorithm and heuristic, the options the solve command takes
+ * (maxnodes, depthlimit, frontier, threads, w, buffer), an optional deadline, and an optional listener for the
+ * improved solutions of ARA*. The with methods return a changed copy.
+ */
+public final class SolveRequest {
+    // weights are kept in hundredths by the solvers, and at most this much keeps their priorities in an int
+    public static final double MAX_WEIGHT = 100;
+
+    public final String algorithm;  // BFS, EBFS, BIBFS, DFS, IDDFS, A*, PA*, IDA*, SMA*, WA*, ARA* or ORACLE
+    public final String heuristic;  // h1, h2, h3 or pdb for the informed searches, else null
+    public final int maxNodes;
+    public final int depthLimit;
+    public final String frontier;
+    public final int threads;
+    public final double weight;     // w of WA*, and the first one of ARA*
+    public final int buffer;        // children EBFS sorts in memory at a time
+    public final Duration deadline; // null for none
+    public final ObjDoubleConsumer<List<String>> improvements; // null for none
+
+    private SolveRequest(String algorithm, String heuristic, int maxNodes, int depthLimit, String frontier,
+                         int threads, double weight, int buffer, Duration deadline,
+                         ObjDoubleConsumer<List<String>> improvements) {
+        this.algorithm = algorithm;
+        this.heuristic = heuristic;
+        this.maxNodes = maxNodes;
+        this.depthLimit = depthLimit;
+        this.frontier = frontier;
+        this.threads = threads;
+        this.weight = weight;
+        this.buffer = buffer;
+        this.deadline = deadline;
+        this.improvements = improvements;
+    }
+
+    /**
+     * of() makes a request for an uninformed solver (BFS, EBFS, BIBFS, DFS, IDDFS or ORACLE) with the default
+     * options
+     */
+    public static SolveRequest of(String algorithm) {
+        return of(algorithm, null);
+    }
+
+    /**
+     * of() makes a request with the default options
+     * @param algorithm is the solver
+     * @param heuristic is the heuristic function for A*, PA*, IDA*, SMA*, WA* and ARA*, and null for the others
+     * @return the request
+     */
+    public static SolveRequest of(String algorithm, String heuristic) {
+        boolean informed;
+        switch (algorithm) {
+            case "BFS": case "EBFS": case "BIBFS": case "DFS": case "IDDFS": case "ORACLE":
+                informed = false;
+                break;
+            case "A*": case "PA*": case "IDA*": case "SMA*": case "WA*": case "ARA*":
+                informed = true;
+                break;
+            default:
+                throw new IllegalArgumentException("invalid algorithm: " + algorithm);
+        }
+        if (informed ? heuristic == null || !SearchRun.isHeuristic(heuristic) : heuristic != null) {
+            throw new IllegalArgumentException("invalid heuristic for " + algorithm + ": " + heuristic);
+        }
+        return new SolveRequest(algorithm, heuristic, 1000, 31, "bucket",
+                Runtime.getRuntime().availableProcessors(), 2.0, 1 << 20, null, null);
+    }
+
+    /**
+     * withMaxNodes() sets the maxnodes limit (the memory budget for SMA*). A limit below 1 stops the search
+     * at its first node, as 'maxnodes=0' does on the command line.
+     */
+    public SolveRequest withMaxNodes(int maxNodes) {
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+
+    /**
+     * withDepthLimit() sets the depth limit of DFS and IDDFS; a limit below 1 finds nothing
+     */
+    public SolveRequest withDepthLimit(int depthLimit) {
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+
+    /**
+     * withFrontier() sets the open list of A*, WA* and ARA* ("bucket" or "heap")
+     */
+    public SolveRequest withFrontier(String frontier) {
+        if (Frontier.create(frontier) == null) throw new IllegalArgumentException("invalid frontier: " + frontier);
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+
+    /**
+     * withThreads() sets the number of PA* threads
+     */
+    public SolveRequest withThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("invalid threads: " + threads);
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+
+    /**
+     * withWeight() sets w, the factor on h(n) in the priorities of WA* and ARA*: their solutions are at most w times
+     * as long as an optimal one. ARA* starts from w and lowers it toward 1 as time allows.
+     */
+    public SolveRequest withWeight(double weight) {
+        if (!(weight >= 1 && weight <= MAX_WEIGHT)) throw new IllegalArgumentException("invalid weight: " + weight);
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+
+    /**
+     * withBuffer() sets how many children EBFS sorts in memory before writing them out as a run; more is faster. It
+     * must be at least 4, and is capped at ExternalBfs.MAX_BUFFER.
+     */
+    public SolveRequest withBuffer(int buffer) {
+        if (buffer < 4) throw new IllegalArgumentException("invalid buffer: " + buffer);
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+
+    /**
+     * withDeadline() sets how long the solve may take, counted from when it is submitted
+     */
+    public SolveRequest withDeadline(Duration deadline) {
+        if (deadline != null && deadline.isNegative()) {
+            throw new IllegalArgumentException("invalid deadline: " + deadline);
+        }
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+
+    /**
+     * withImprovements() sets a listener that ARA* calls on the solving thread with each solution it finds, shorter
+     * than the last, together with a bound on how many times as long as an optimal one it can be
+     */
+    public SolveRequest withImprovements(ObjDoubleConsumer<List<String>> improvements) {
+        return new SolveRequest(algorithm, heuristic, maxNodes, depthLimit, frontier, threads, weight, buffer, deadline,
+                improvements);
+    }
+}
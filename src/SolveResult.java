@@ -0,0 +1,29 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Outcome of a solve from SolverEngine: the moves, the search statistics, the number of nodes the solve command
+ * prints, and the messages the solver would have printed (such as "Error: maxnodes limit (1000) reached")
+ */
+public final class SolveResult {
+    public final List<String> solution;
+    public final SearchStats stats;
+    public final String messages;
+    public final int nodes;
+
+    SolveResult(List<String> solution, SearchStats stats, String messages, int nodes) {
+        this.solution = Collections.unmodifiableList(solution);
+        this.stats = stats;
+        this.messages = messages;
+        this.nodes = nodes;
+    }
+
+    /**
+     * solved() is true if the solve found a solution (an empty one if the board was already solved)
+     */
+    public boolean solved() {
+        return stats.outcome.equals(SearchStats.SOLVED) || stats.outcome.equals(SearchStats.CACHED);
+    }
+}
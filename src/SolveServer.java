@@ -0,0 +1,148 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Line protocol server for 'java EightPuzzle --serve port'
+ *
+ * Each connection on localhost is a session with a board of its own: it sends commands one per line, as typed at the
+ * interactive prompt, and gets back their output followed by an empty line. 'stop' closes the connection. Sessions
+ * share the oracle and pattern databases, which are loaded once and only read. A solve that another session is
+ * already running for the same board and command line is not run again: the session waits for the running one and
+ * gets its output, so a burst of identical requests costs one search. Sessions with a solution cache turned on run
+ * all their solves themselves. A command that fails replies with an error line and the session goes on.
+ */
+public final class SolveServer {
+    private final int port;
+
+    // solves being run, by board and command line, for the sessions that send the same one meanwhile
+    private final ConcurrentHashMap<String, CompletableFuture<Solve>> running = new ConcurrentHashMap<>();
+
+    public SolveServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * serve() accepts connections until the process is stopped
+     * @throws IOException if the port cannot be opened
+     */
+    public void serve() throws IOException {
+        ExecutorService sessions = sessionExecutor();
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("Serving on " + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort());
+            while (true) {
+                Socket socket = server.accept();
+                sessions.execute(() -> session(socket));
+            }
+        }
+    }
+
+    /**
+     * sessionExecutor() runs each session on a thread of its own: a virtual thread on Java 21 and later, where
+     * Executors.newVirtualThreadPerTaskExecutor() exists, and a pooled platform thread before that
+     */
+    private static ExecutorService sessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * session() runs the commands of one connection
+     */
+    private void session(Socket socket) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream print = new PrintStream(output, false, StandardCharsets.UTF_8);
+        EightPuzzle board = new EightPuzzle(print);
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream reply = socket.getOutputStream();
+            String line;
+            while ((line = in.readLine()) != null && !line.equalsIgnoreCase("stop")) {
+                try {
+                    if (line.isEmpty()) {
+                        print.println("Error: Please provide a command");
+                    } else if (line.startsWith("solve ")) {
+                        solve(board, line, print, output);
+                    } else {
+                        board.cmd(line);
+                    }
+                } catch (RuntimeException e) {
+                    print.println(failure(e));
+                }
+                print.println();
+                print.flush();
+                output.writeTo(reply);
+                reply.flush();
+                output.reset();
+            }
+        } catch (IOException e) {
+            // the client went away; its session ends with the connection
+        }
+    }
+
+    /**
+     * solve() runs a solve command for a session, or waits for the same solve of another session and copies its
+     * output and statistics
+     */
+    private void solve(EightPuzzle board, String line, PrintStream print, ByteArrayOutputStream output) {
+        String state = board.stateKey();
+        if (state == null) {
+            board.cmd(line); // the session's own cache answers differently, so it never shares a solve
+            return;
+        }
+        String key = state + "|" + line;
+        CompletableFuture<Solve> mine = new CompletableFuture<>();
+        CompletableFuture<Solve> other = running.putIfAbsent(key, mine);
+        if (other != null) {
+            Solve solve = other.join();
+            print.print(solve.output);
+            board.adoptStats(solve.stats);
+            return;
+        }
+
+        try {
+            board.cmd(line);
+        } catch (RuntimeException e) {
+            print.println(failure(e)); // sessions waiting for this solve get the error line too
+        } finally {
+            print.flush();
+            mine.complete(new Solve(output.toString(StandardCharsets.UTF_8), board.lastStats()));
+            running.remove(key, mine);
+        }
+    }
+
+    /**
+     * failure() returns the error line a session replies with when a command throws
+     */
+    private static String failure(RuntimeException e) {
+        return "Error: command failed: " + e;
+    }
+
+    // output and statistics of one solve
+    private static final class Solve {
+        final String output;
+        final SearchStats stats;
+
+        Solve(String output, SearchStats stats) {
+            this.output = output;
+            this.stats = stats;
+        }
+    }
+}
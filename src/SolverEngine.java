@@ -0,0 +1,95 @@
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Stateless entry point to the solvers: the board and a SolveRequest go in, a SolveResult comes out
+ *
+ * The engine has no fields. Every solve runs in a SearchRun of its own, so one engine can be shared by any number of
+ * threads without locks; concurrent solves only share the oracle and pattern databases, which are loaded once and
+ * then only read. EightPuzzle's commands are an adapter over it that keeps the board, the seed and the solution cache
+ * between commands.
+ */
+public final class SolverEngine {
+
+    /**
+     * solve() solves a board on the calling thread. The request's deadline, if any, counts from now.
+     * @param tiles gives the tile on each cell of a 3x3, 4x4 or 5x5 board; it is copied
+     * @param request is the algorithm and options
+     * @return the solution and statistics
+     * @throws IllegalArgumentException if the tiles are not a board
+     */
+    public SolveResult solve(int[] tiles, SolveRequest request) {
+        checkTiles(tiles);
+        return run(tiles, request, Cancellation.create(request.deadline), null);
+    }
+
+    /**
+     * solveAsync() solves a board on the common pool without blocking the caller (see the overload below)
+     */
+    public CompletableFuture<SolveResult> solveAsync(int[] tiles, SolveRequest request) {
+        return solveAsync(tiles, request, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * solveAsync() solves a board on an executor without blocking the caller. Cancelling the future, or passing the
+     * request's deadline, stops the search at its next expansion; a cancelled future completes with a
+     * CancellationException and a late one with a result whose outcome is SearchStats.DEADLINE.
+     * @param tiles gives the tile on each cell of a 3x3, 4x4 or 5x5 board; it is copied
+     * @param request is the algorithm and options
+     * @param executor runs the solve
+     * @return the solution and statistics, once the solve ends
+     * @throws IllegalArgumentException if the tiles are not a board
+     */
+    public CompletableFuture<SolveResult> solveAsync(int[] tiles, SolveRequest request, Executor executor) {
+        checkTiles(tiles);
+        int[] board = tiles.clone();
+        Cancellation cancellation = Cancellation.create(request.deadline);
+
+        CompletableFuture<SolveResult> result = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                cancellation.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        executor.execute(() -> {
+            if (result.isDone()) return; // cancelled before it started
+            try {
+                result.complete(run(board, request, cancellation, null));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * run() solves a board without checking it, for EightPuzzle, whose board may be left empty by an invalid
+     * setState and is then reported as unsolvable
+     * @param tiles gives the tile on each cell of a 3x3, 4x4 or 5x5 board
+     * @param request is the algorithm and options
+     * @param cancellation stops the solve early, or is Cancellation.NONE
+     * @param cache is the solution cache to use, or null; the caller makes sure no other solve uses it meanwhile
+     * @return the solution and statistics
+     */
+    SolveResult run(int[] tiles, SolveRequest request, Cancellation cancellation, SolutionCache cache) {
+        return new SearchRun(tiles, request, cancellation, cache).run();
+    }
+
+    /**
+     * checkTiles() is a helper method that rejects anything but a 3x3, 4x4 or 5x5 board holding each tile once
+     */
+    private static void checkTiles(int[] tiles) {
+        boolean[] seen = new boolean[tiles.length];
+        boolean valid = Board.forCells(tiles.length) != null;
+        for (int i = 0; i < tiles.length && valid; i++) {
+            valid = tiles[i] >= 0 && tiles[i] < tiles.length && !seen[tiles[i]];
+            if (valid) seen[tiles[i]] = true;
+        }
+        if (!valid) throw new IllegalArgumentException("invalid puzzle state: " + Arrays.toString(tiles));
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Mia Yang
+ * CSDS 391 Intro to AI
+ * Long keys for the states a search touches. Boards of up to 16 cells are their own key (Board.pack()); larger
+ * boards are interned, so their keys are only meaningful within one StateSpace.
+ */
+public interface StateSpace {
+    Board board();
+
+    /**
+     * key() returns the key of a board
+     * @param tiles gives the tile on each cell
+     */
+    long key(int[] tiles);
+
+    /**
+     * tiles() writes the board of a key into tiles
+     */
+    void tiles(long key, int[] tiles);
+
+    /**
+     * tile() returns the tile on one cell of a key's board
+     */
+    int tile(long key, int cell);
+
+    /**
+     * blank() returns the blank's cell for a key
+     */
+    int blank(long key);
+
+    /**
+     * child() returns the key of the state reached by moving the blank from its cell to the target cell
+     */
+    long child(long key, int blank, int target);
+
+    /**
+     * newNodeMap() returns empty per-state bookkeeping for a search over this space
+     */
+    NodeMap newNodeMap();
+
+    /**
+     * create() returns a fresh state space for one search on a board
+     * @param board is the board geometry
+     * @return the state space
+     */
+    static StateSpace create(Board board) {
+        return board.fitsInLong() ? PackedSpace.of(board) : new InternedSpace(board);
+    }
+}